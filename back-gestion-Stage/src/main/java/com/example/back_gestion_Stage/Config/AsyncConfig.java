@@ -0,0 +1,28 @@
+package com.example.back_gestion_Stage.Config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+
+    public static final String NOTIFICATION_STREAM_EXECUTOR = "notificationStreamExecutor";
+
+    // Quelques threads suffisent : les connexions SSE restent ouvertes sans thread dédié,
+    // ce pool ne sert qu'à écrire les événements après commit.
+    @Bean(name = NOTIFICATION_STREAM_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationStreamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("notif-sse-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.back_gestion_Stage.Config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cache en mémoire des données de référence (encadreurs, supérieurs, admins).
+ * Taille, durée de vie et statistiques sont réglées par spring.cache.caffeine.spec ;
+ * les compteurs hit/miss sont publiés par l'actuator (cache.gets).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ENCADREURS = "encadreurs";
+    public static final String SUPERIEURS = "superieurs";
+    public static final String ADMINS = "admins";
+    public static final String MEDIA_STATS = "mediaStats";
+
+    // Les statistiques ne sont pas invalidées à chaque upload : une durée de vie courte suffit
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> mediaStatsCacheCustomizer(
+            @Value("${app.media.stats.cache-ttl:30s}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(MEDIA_STATS,
+                Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(1).recordStats().build());
+    }
+}
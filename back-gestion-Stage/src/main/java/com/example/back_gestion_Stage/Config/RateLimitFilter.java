@@ -0,0 +1,49 @@
+package com.example.back_gestion_Stage.Config;
+
+import com.example.back_gestion_Stage.Services.RateLimiterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Applique les politiques de RateLimiterService par adresse IP, avant l'authentification
+ * et avant tout accès à la base. Une requête refusée reçoit 429 avec Retry-After.
+ * Derrière un proxy, server.forward-headers-strategy doit être réglé pour que
+ * getRemoteAddr() donne l'adresse du client.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiterService rateLimiterService;
+
+    public RateLimitFilter(RateLimiterService rateLimiterService) {
+        this.rateLimiterService = rateLimiterService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String chemin = request.getRequestURI().substring(request.getContextPath().length());
+        Optional<RateLimiterService.Decision> decision =
+                rateLimiterService.consommerPourRoute(request.getMethod(), chemin, request.getRemoteAddr());
+        if (decision.isPresent() && !decision.get().autorisee()) {
+            refuser(response, decision.get().retryAfterSecondes());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static void refuser(HttpServletResponse response, long retryAfterSecondes) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSecondes));
+        // La réponse ne passe pas par @CrossOrigin : le front doit pouvoir lire le 429
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+    }
+}
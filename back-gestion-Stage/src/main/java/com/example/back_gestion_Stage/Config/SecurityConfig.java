@@ -1,30 +1,91 @@
 package com.example.back_gestion_Stage.Config;
 
+import com.example.back_gestion_Stage.Services.RateLimiterService;
+import com.example.back_gestion_Stage.Services.TokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+import java.util.Map;
+
+@Slf4j
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 
+    /**
+     * Les nouveaux hash sont préfixés {bcrypt} ; les anciens hash sans préfixe restent vérifiés
+     * par un BCrypt classique. Le coût est fixé par app.auth.bcrypt.strength, ou calibré au
+     * démarrage (0) pour qu'une vérification dure environ app.auth.bcrypt.target-latency sur
+     * cette machine. upgradeEncoding signale les hash plus faibles, ré-encodés à la connexion.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.auth.bcrypt.strength:0}") int coutFixe,
+            @Value("${app.auth.bcrypt.target-latency:250ms}") Duration latenceCible,
+            @Value("${app.auth.bcrypt.min-strength:10}") int coutMin,
+            @Value("${app.auth.bcrypt.max-strength:14}") int coutMax) {
+        int cout = coutFixe > 0 ? coutFixe : calibrerCoutBCrypt(latenceCible, coutMin, coutMax);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(cout)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(cout));
+        return encoder;
+    }
+
+    // Chaque point de coût double le temps de calcul : on mesure au coût minimal puis on extrapole
+    static int calibrerCoutBCrypt(Duration latenceCible, int coutMin, int coutMax) {
+        if (coutMin < 4 || coutMax > 31 || coutMin > coutMax) {
+            throw new IllegalArgumentException("Bornes de coût BCrypt invalides : " + coutMin + ".." + coutMax);
+        }
+        BCryptPasswordEncoder reference = new BCryptPasswordEncoder(coutMin);
+        String hash = reference.encode("calibration");
+        long meilleur = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long debut = System.nanoTime();
+            reference.matches("calibration", hash);
+            meilleur = Math.min(meilleur, System.nanoTime() - debut);
+        }
+        int cout = coutMin;
+        long duree = meilleur;
+        while (cout < coutMax && duree * 2 <= latenceCible.toNanos()) {
+            duree *= 2;
+            cout++;
+        }
+        log.info("Coût BCrypt calibré à {} (~{} ms par vérification, cible {} ms)",
+                cout, Duration.ofNanos(duree).toMillis(), latenceCible.toMillis());
+        return cout;
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService,
+                                           RateLimiterService rateLimiterService) throws Exception {
         http
             .csrf(csrf -> csrf.disable()) // Désactiver CSRF pour les APIs
+            // Jetons signés : pas de session HTTP, le compte est relu du jeton à chaque requête
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            // Limitation de débit avant le jeton : une requête refusée ne coûte ni base ni BCrypt
+            .addFilterBefore(new RateLimitFilter(rateLimiterService), UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+            .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .authorizeHttpRequests(authz -> authz
+                .requestMatchers("/api/comptes-utilisateurs/me").authenticated()
                 .requestMatchers("/**").permitAll() // Autoriser toutes les requêtes sans authentification
                 .anyRequest().authenticated()
             );
         return http.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.example.back_gestion_Stage.Config;
+
+import com.example.back_gestion_Stage.Services.CompteAuthentifie;
+import com.example.back_gestion_Stage.Services.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Lit "Authorization: Bearer <jeton>" et place le compte dans le SecurityContext, avec
+ * l'autorité ROLE_<TypeCompte>. Aucun accès à la base ; un jeton absent ou invalide
+ * laisse simplement la requête anonyme.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String PREFIXE = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String entete = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (entete != null && entete.startsWith(PREFIXE)) {
+            tokenService.valider(entete.substring(PREFIXE.length()).trim()).ifPresent(this::authentifier);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void authentifier(CompteAuthentifie compte) {
+        List<SimpleGrantedAuthority> autorites = compte.typeCompte() != null
+                ? List.of(new SimpleGrantedAuthority("ROLE_" + compte.typeCompte().name()))
+                : List.of();
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(compte, null, autorites);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.AdminDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Services.AdminService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +23,17 @@ public class AdminController {
         return ResponseEntity.ok(admins);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<AdminDTO>> getAdminsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(adminService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{documentId}")
     public ResponseEntity<AdminDTO> getAdminByDocumentId(@PathVariable String documentId) {
         return adminService.findByDocumentId(documentId)
@@ -54,7 +66,7 @@ public class AdminController {
 
     @PutMapping("/{documentId}")
     public ResponseEntity<AdminDTO> updateAdmin(@PathVariable String documentId, @RequestBody AdminDTO adminDTO) {
-        if (!adminService.findByDocumentId(documentId).isPresent()) {
+        if (!adminService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -66,7 +78,7 @@ public class AdminController {
 
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteAdmin(@PathVariable String documentId) {
-        if (!adminService.findByDocumentId(documentId).isPresent()) {
+        if (!adminService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -1,15 +1,24 @@
 package com.example.back_gestion_Stage.Controllers;
 
+import com.example.back_gestion_Stage.DTOs.AuthenticationResponseDTO;
 import com.example.back_gestion_Stage.DTOs.CompteUtilisateurDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
+import com.example.back_gestion_Stage.Services.AuthentificationSurchargeeException;
+import com.example.back_gestion_Stage.Services.CompteAuthentifie;
 import com.example.back_gestion_Stage.Services.CompteUtilisateurService;
+import com.example.back_gestion_Stage.Services.RateLimiterService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/comptes-utilisateurs")
@@ -19,6 +28,9 @@ public class CompteUtilisateurController {
     @Autowired
     private CompteUtilisateurService compteUtilisateurService;
 
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
     @GetMapping
     public ResponseEntity<List<CompteUtilisateurDTO>> getAllComptes() {
         try {
@@ -29,6 +41,19 @@ public class CompteUtilisateurController {
         }
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<CompteUtilisateurDTO>> getComptesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(compteUtilisateurService.findActifsPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/tous")
     public ResponseEntity<List<CompteUtilisateurDTO>> getAllComptesWithInactifs() {
         try {
@@ -39,6 +64,19 @@ public class CompteUtilisateurController {
         }
     }
 
+    @GetMapping(value = "/tous", params = "limit")
+    public ResponseEntity<CursorPage<CompteUtilisateurDTO>> getAllComptesWithInactifsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(compteUtilisateurService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/{documentId}")
     public ResponseEntity<CompteUtilisateurDTO> getCompteByDocumentId(@PathVariable String documentId) {
         try {
@@ -79,28 +117,54 @@ public class CompteUtilisateurController {
         }
     }
 
+    // Traitement asynchrone : le thread Tomcat est rendu pendant la vérification BCrypt
     @PostMapping("/authenticate")
-    public ResponseEntity<CompteUtilisateurDTO> authenticate(@RequestBody Map<String, String> credentials) {
+    public CompletableFuture<ResponseEntity<AuthenticationResponseDTO>> authenticate(@RequestBody Map<String, String> credentials) {
         try {
             String email = credentials.get("email");
             String password = credentials.get("password");
 
             if (email == null || password == null) {
-                return ResponseEntity.badRequest().build();
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
             }
 
-            return compteUtilisateurService.authenticate(email, password)
-                    .map(ResponseEntity::ok)
-                    .orElse(ResponseEntity.status(401).build());
+            // En plus de la limite par IP (RateLimitFilter) : un même compte visé depuis plusieurs adresses
+            RateLimiterService.Decision decision = rateLimiterService.consommerCompte(email);
+            if (!decision.autorisee()) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSecondes()))
+                        .build());
+            }
+
+            return compteUtilisateurService.authenticateAsync(email, password)
+                    .thenApply(compte -> compte
+                            .map(ResponseEntity::ok)
+                            .orElse(ResponseEntity.status(401).build()))
+                    .exceptionally(e -> ResponseEntity.internalServerError().build());
+        } catch (AuthentificationSurchargeeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build());
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
         }
     }
 
+    // Compte de la requête, lu dans le jeton de session : aucun accès à la base
+    @GetMapping("/me")
+    public ResponseEntity<CompteUtilisateurDTO> me(@AuthenticationPrincipal CompteAuthentifie compte) {
+        CompteUtilisateurDTO dto = new CompteUtilisateurDTO();
+        dto.setDocumentId(compte.documentId());
+        dto.setEmail(compte.email());
+        dto.setTypeCompte(compte.typeCompte());
+        dto.setEntityDocumentId(compte.entityDocumentId());
+        return ResponseEntity.ok(dto);
+    }
+
     @PutMapping("/{documentId}")
     public ResponseEntity<CompteUtilisateurDTO> updateCompte(@PathVariable String documentId, @RequestBody CompteUtilisateurDTO compteDTO) {
         try {
-            if (!compteUtilisateurService.findByDocumentId(documentId).isPresent()) {
+            if (!compteUtilisateurService.existsByDocumentId(documentId)) {
                 return ResponseEntity.notFound().build();
             }
 
@@ -133,7 +197,7 @@ public class CompteUtilisateurController {
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteCompte(@PathVariable String documentId) {
         try {
-            if (!compteUtilisateurService.findByDocumentId(documentId).isPresent()) {
+            if (!compteUtilisateurService.existsByDocumentId(documentId)) {
                 return ResponseEntity.notFound().build();
             }
 
@@ -1,6 +1,7 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.EncadreurDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
 import com.example.back_gestion_Stage.Services.EncadreurService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,12 +24,34 @@ public class EncadreurController {
         return ResponseEntity.ok(encadreurs);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<EncadreurDTO>> getEncadreursPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(encadreurService.findActifsPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/tous")
     public ResponseEntity<List<EncadreurDTO>> getAllEncadreursWithInactifs() {
         List<EncadreurDTO> encadreurs = encadreurService.findAll();
         return ResponseEntity.ok(encadreurs);
     }
 
+    @GetMapping(value = "/tous", params = "limit")
+    public ResponseEntity<CursorPage<EncadreurDTO>> getAllEncadreursWithInactifsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(encadreurService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/with-superieur")
     public ResponseEntity<List<EncadreurDTO>> getAllEncadreursWithSuperieur() {
         List<EncadreurDTO> encadreurs = encadreurService.findAllWithSuperieur();
@@ -67,7 +90,7 @@ public class EncadreurController {
 
     @PutMapping("/{documentId}")
     public ResponseEntity<EncadreurDTO> updateEncadreur(@PathVariable String documentId, @RequestBody EncadreurDTO encadreurDTO) {
-        if (!encadreurService.findByDocumentId(documentId).isPresent()) {
+        if (!encadreurService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -78,7 +101,7 @@ public class EncadreurController {
 
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteEncadreur(@PathVariable String documentId) {
-        if (!encadreurService.findByDocumentId(documentId).isPresent()) {
+        if (!encadreurService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -1,14 +1,25 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.MediaFileDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
+import com.example.back_gestion_Stage.DTOs.UploadSessionDTO;
+import com.example.back_gestion_Stage.Services.ChunkedUploadService;
+import com.example.back_gestion_Stage.Services.FichierTropVolumineuxException;
 import com.example.back_gestion_Stage.Services.MediaFileService;
+import com.example.back_gestion_Stage.Services.UploadMigrationService;
+import com.example.back_gestion_Stage.Services.UploadReconciliationService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/media")
@@ -18,12 +29,32 @@ public class MediaFileController {
     @Autowired
     private MediaFileService mediaFileService;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private UploadMigrationService uploadMigrationService;
+
+    @Autowired
+    private UploadReconciliationService uploadReconciliationService;
+
     @GetMapping
     public ResponseEntity<List<MediaFileDTO>> getAllMediaFiles() {
         List<MediaFileDTO> mediaFiles = mediaFileService.findAll();
         return ResponseEntity.ok(mediaFiles);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<MediaFileDTO>> getMediaFilesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(mediaFileService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{documentId}")
     public ResponseEntity<MediaFileDTO> getMediaFile(@PathVariable String documentId) {
         return mediaFileService.findByDocumentId(documentId)
@@ -31,6 +62,37 @@ public class MediaFileController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // variant = original (défaut), thumbnail ou medium ; supporte Range, ETag et Last-Modified
+    @GetMapping("/{documentId}/download")
+    public ResponseEntity<Resource> downloadMediaFile(
+            @PathVariable String documentId,
+            @RequestParam(value = "variant", defaultValue = "original") String variant) throws IOException {
+        MediaFileDTO mediaFile = mediaFileService.findByDocumentId(documentId).orElse(null);
+        if (mediaFile == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String url;
+        switch (variant) {
+            case "original" -> url = mediaFile.getUrl();
+            case "thumbnail" -> url = mediaFile.getThumbnailUrl() != null ? mediaFile.getThumbnailUrl() : mediaFile.getUrl();
+            case "medium" -> url = mediaFile.getMediumUrl() != null ? mediaFile.getMediumUrl() : mediaFile.getUrl();
+            default -> {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        Resource resource = mediaFileService.loadAsResource(url).orElse(null);
+        if (resource == null) {
+            // Stockage objet : le fournisseur sert lui-même le contenu (Range, ETag)
+            if (url != null && (url.startsWith("https://") || url.startsWith("http://"))) {
+                return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).build();
+            }
+            return ResponseEntity.notFound().build();
+        }
+        return MediaResponses.fichier(resource, mediaFile.getMime(), mediaFile.getName());
+    }
+
     @PostMapping("/upload")
     public ResponseEntity<MediaFileDTO> uploadFile(
             @RequestParam("file") MultipartFile file,
@@ -40,14 +102,146 @@ public class MediaFileController {
         try {
             MediaFileDTO mediaFileDTO = mediaFileService.uploadFile(file, alternativeText, caption);
             return ResponseEntity.ok(mediaFileDTO);
+        } catch (FichierTropVolumineuxException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
         } catch (IOException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Corps brut (Content-Type = type du fichier) écrit directement sur disque, sans spool multipart
+    @PostMapping("/upload/stream")
+    public ResponseEntity<MediaFileDTO> uploadStream(
+            HttpServletRequest request,
+            @RequestParam("name") String name,
+            @RequestParam(value = "alternativeText", required = false) String alternativeText,
+            @RequestParam(value = "caption", required = false) String caption) {
+
+        try {
+            MediaFileDTO mediaFileDTO = mediaFileService.uploadStream(
+                    request.getInputStream(), name, request.getContentType(), alternativeText, caption);
+            return ResponseEntity.ok(mediaFileDTO);
+        } catch (FichierTropVolumineuxException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Dédoublonnage côté client : si le contenu (sha256) est déjà stocké, aucun octet n'est renvoyé
+    @PostMapping("/from-sha256")
+    public ResponseEntity<MediaFileDTO> createFromSha256(@RequestBody MediaFileDTO mediaFileDTO) {
+        try {
+            return mediaFileService.createFromSha256(mediaFileDTO)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Upload reprenable : POST ouvre la session, PUT ?offset= envoie un morceau (corps brut),
+    // GET donne l'offset à reprendre, POST /finalize crée le média, DELETE abandonne
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionDTO> ouvrirUpload(@RequestBody UploadSessionDTO uploadSessionDTO) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(chunkedUploadService.ouvrir(uploadSessionDTO));
+        } catch (FichierTropVolumineuxException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/uploads/{uploadDocumentId}")
+    public ResponseEntity<UploadSessionDTO> getUpload(@PathVariable String uploadDocumentId) {
+        return chunkedUploadService.findByDocumentId(uploadDocumentId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/uploads/{uploadDocumentId}")
+    public ResponseEntity<UploadSessionDTO> envoyerMorceau(
+            HttpServletRequest request,
+            @PathVariable String uploadDocumentId,
+            @RequestParam("offset") long offset) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.ecrireMorceau(uploadDocumentId, offset, request.getInputStream()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            // Offset non contigu ou morceau concurrent : le client reprend depuis l'offset renvoyé
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(chunkedUploadService.findByDocumentId(uploadDocumentId).orElse(null));
+        } catch (FichierTropVolumineuxException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/uploads/{uploadDocumentId}/finalize")
+    public ResponseEntity<MediaFileDTO> finaliserUpload(@PathVariable String uploadDocumentId) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.finaliser(uploadDocumentId));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadDocumentId}")
+    public ResponseEntity<Void> annulerUpload(@PathVariable String uploadDocumentId) {
+        try {
+            chunkedUploadService.annuler(uploadDocumentId);
+            return ResponseEntity.ok().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            // Morceau en cours d'écriture : l'annulation est à renvoyer une fois celui-ci terminé
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Migration en arrière-plan des fichiers à plat vers uploads/ab/cd/ ; le service reste disponible
+    @PostMapping("/migration/sharded")
+    public ResponseEntity<UploadMigrationService.Progression> demarrerMigration(
+            @RequestParam(value = "tailleLot", required = false) Integer tailleLot) {
+        try {
+            boolean demarree = uploadMigrationService.demarrer(tailleLot);
+            return ResponseEntity.status(demarree ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                    .body(uploadMigrationService.progression());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/migration/sharded")
+    public ResponseEntity<UploadMigrationService.Progression> getMigration() {
+        return ResponseEntity.ok(uploadMigrationService.progression());
+    }
+
+    // Lance une passe de réconciliation fichiers / base hors planning ; le rapport se consulte en GET
+    @PostMapping("/reconciliation")
+    public ResponseEntity<UploadReconciliationService.Rapport> demarrerReconciliation() {
+        boolean demarree = uploadReconciliationService.demarrer();
+        return ResponseEntity.status(demarree ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(uploadReconciliationService.rapport());
+    }
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<UploadReconciliationService.Rapport> getReconciliation() {
+        return ResponseEntity.ok(uploadReconciliationService.rapport());
+    }
+
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteMediaFile(@PathVariable String documentId) {
-        if (!mediaFileService.findByDocumentId(documentId).isPresent()) {
+        if (!mediaFileService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
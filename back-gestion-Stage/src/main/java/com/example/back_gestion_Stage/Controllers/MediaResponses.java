@@ -0,0 +1,54 @@
+package com.example.back_gestion_Stage.Controllers;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réponse commune pour servir un fichier uploadé.
+ * Les fichiers portent un nom UUID et ne changent jamais : cache long et immuable.
+ * ETag / Last-Modified déclenchent le 304 et les en-têtes Range sont traités par Spring
+ * (ResourceRegion), le contenu est copié par blocs sans être chargé en mémoire.
+ */
+final class MediaResponses {
+
+    private static final CacheControl CACHE_IMMUABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private MediaResponses() {
+    }
+
+    static ResponseEntity<Resource> fichier(Resource resource, String mime, String nomAffiche) throws IOException {
+        long derniereModification = resource.lastModified();
+        MediaType type = typeDeContenu(resource, mime);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(type)
+                .eTag("\"" + resource.getFilename() + "-" + derniereModification + "\"")
+                .lastModified(derniereModification)
+                .cacheControl(CACHE_IMMUABLE);
+        if (nomAffiche != null) {
+            builder.header("Content-Disposition",
+                    ContentDisposition.inline().filename(nomAffiche, StandardCharsets.UTF_8).build().toString());
+        }
+        return builder.body(resource);
+    }
+
+    private static MediaType typeDeContenu(Resource resource, String mime) {
+        if (mime != null) {
+            try {
+                return MediaType.parseMediaType(mime);
+            } catch (InvalidMediaTypeException e) {
+                // mime enregistré invalide : on se rabat sur l'extension
+            }
+        }
+        return MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.NotificationDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.Notification;
 import com.example.back_gestion_Stage.Services.NotificationService;
+import com.example.back_gestion_Stage.Services.NotificationStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -18,12 +22,26 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
     @GetMapping
     public ResponseEntity<List<NotificationDTO>> getAllNotifications() {
         List<NotificationDTO> notifications = notificationService.findAll();
         return ResponseEntity.ok(notifications);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<NotificationDTO>> getNotificationsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(notificationService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{documentId}")
     public ResponseEntity<NotificationDTO> getNotificationByDocumentId(@PathVariable String documentId) {
         return notificationService.findByDocumentId(documentId)
@@ -56,9 +74,18 @@ public class NotificationController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<NotificationDTO>> createNotifications(@RequestBody List<NotificationDTO> notifications) {
+        try {
+            return ResponseEntity.ok(notificationService.createNotifications(notifications));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/{documentId}")
     public ResponseEntity<NotificationDTO> updateNotification(@PathVariable String documentId, @RequestBody NotificationDTO notificationDTO) {
-        if (!notificationService.findByDocumentId(documentId).isPresent()) {
+        if (!notificationService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -69,7 +96,7 @@ public class NotificationController {
 
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteNotification(@PathVariable String documentId) {
-        if (!notificationService.findByDocumentId(documentId).isPresent()) {
+        if (!notificationService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -77,18 +104,46 @@ public class NotificationController {
         return ResponseEntity.ok().build();
     }
 
+    // Purge manuelle des notifications lues de plus de "jours" jours ; renvoie le nombre supprimé
+    @DeleteMapping("/anciennes")
+    public ResponseEntity<Long> deleteOldNotifications(@RequestParam("jours") int jours) {
+        try {
+            return ResponseEntity.ok(notificationService.deleteOldNotifications(jours));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/compte/{compteUtilisateurDocumentId}")
     public ResponseEntity<List<NotificationDTO>> getNotificationsByCompte(@PathVariable String compteUtilisateurDocumentId) {
         List<NotificationDTO> notifications = notificationService.findByCompteUtilisateurDocumentId(compteUtilisateurDocumentId);
         return ResponseEntity.ok(notifications);
     }
 
+    @GetMapping(value = "/compte/{compteUtilisateurDocumentId}", params = "limit")
+    public ResponseEntity<CursorPage<NotificationDTO>> getNotificationsByComptePage(
+            @PathVariable String compteUtilisateurDocumentId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(notificationService.findPageByCompteUtilisateurDocumentId(compteUtilisateurDocumentId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/compte/{compteUtilisateurDocumentId}/non-lues")
     public ResponseEntity<List<NotificationDTO>> getNotificationsNonLues(@PathVariable String compteUtilisateurDocumentId) {
         List<NotificationDTO> notifications = notificationService.findByCompteUtilisateurDocumentIdAndNonLues(compteUtilisateurDocumentId);
         return ResponseEntity.ok(notifications);
     }
 
+    // Flux SSE : événements "notification" et "count-non-lues", remplace le polling du badge
+    @GetMapping(value = "/compte/{compteUtilisateurDocumentId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(@PathVariable String compteUtilisateurDocumentId) {
+        return notificationStreamService.subscribe(compteUtilisateurDocumentId);
+    }
+
     @GetMapping("/type/{type}")
     public ResponseEntity<List<NotificationDTO>> getNotificationsByType(@PathVariable Notification.TypeNotification type) {
         List<NotificationDTO> notifications = notificationService.findByType(type);
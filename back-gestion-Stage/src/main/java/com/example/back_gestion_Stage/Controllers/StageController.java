@@ -1,13 +1,17 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.StageDTO;
+import com.example.back_gestion_Stage.DTOs.StageAffectationDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.Stage;
+import com.example.back_gestion_Stage.Services.DocumentIdsIntrouvablesException;
 import com.example.back_gestion_Stage.Services.StageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/stages")
@@ -23,6 +27,17 @@ public class StageController {
         return ResponseEntity.ok(stages);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<StageDTO>> getStagesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(stageService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/with-relations")
     public ResponseEntity<List<StageDTO>> getAllStagesWithRelations() {
         List<StageDTO> stages = stageService.findAllWithRelations();
@@ -37,14 +52,19 @@ public class StageController {
     }
 
     @PostMapping
-    public ResponseEntity<StageDTO> createStage(@RequestBody StageDTO stageDTO) {
-        StageDTO savedStage = stageService.save(stageDTO);
-        return ResponseEntity.ok(savedStage);
+    public ResponseEntity<?> createStage(@RequestBody StageDTO stageDTO) {
+        try {
+            StageDTO savedStage = stageService.save(stageDTO);
+            return ResponseEntity.ok(savedStage);
+        } catch (DocumentIdsIntrouvablesException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage(), "documentIdsIntrouvables", e.getDocumentIds()));
+        }
     }
 
     @PutMapping("/{documentId}")
     public ResponseEntity<StageDTO> updateStage(@PathVariable String documentId, @RequestBody StageDTO stageDTO) {
-        if (!stageService.findByDocumentId(documentId).isPresent()) {
+        if (!stageService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -55,7 +75,7 @@ public class StageController {
 
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteStage(@PathVariable String documentId) {
-        if (!stageService.findByDocumentId(documentId).isPresent()) {
+        if (!stageService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -99,6 +119,18 @@ public class StageController {
         }
     }
 
+    @PostMapping("/{stageDocumentId}/stagiaires")
+    public ResponseEntity<StageAffectationDTO> addStagiairesToStage(
+            @PathVariable String stageDocumentId,
+            @RequestBody List<String> stagiairesDocumentIds) {
+        if (!stageService.existsByDocumentId(stageDocumentId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StageAffectationDTO affectation = stageService.addStagiairesToStage(stageDocumentId, stagiairesDocumentIds);
+        return ResponseEntity.ok(affectation);
+    }
+
     @DeleteMapping("/{stageDocumentId}/stagiaires/{stagiaireDocumentId}")
     public ResponseEntity<StageDTO> removeStagiaireFromStage(
             @PathVariable String stageDocumentId,
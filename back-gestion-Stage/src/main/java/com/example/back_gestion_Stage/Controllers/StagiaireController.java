@@ -1,6 +1,7 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.StagiaireDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
 import com.example.back_gestion_Stage.Services.StagiaireService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,12 +24,34 @@ public class StagiaireController {
         return ResponseEntity.ok(stagiaires);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<StagiaireDTO>> getStagiairesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(stagiaireService.findActifsPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/tous")
     public ResponseEntity<List<StagiaireDTO>> getAllStagiairesWithInactifs() {
         List<StagiaireDTO> stagiaires = stagiaireService.findAll();
         return ResponseEntity.ok(stagiaires);
     }
 
+    @GetMapping(value = "/tous", params = "limit")
+    public ResponseEntity<CursorPage<StagiaireDTO>> getAllStagiairesWithInactifsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(stagiaireService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/with-encadreur")
     public ResponseEntity<List<StagiaireDTO>> getAllStagiairesWithEncadreur() {
         List<StagiaireDTO> stagiaires = stagiaireService.findAllWithEncadreur();
@@ -67,7 +90,7 @@ public class StagiaireController {
 
     @PutMapping("/{documentId}")
     public ResponseEntity<StagiaireDTO> updateStagiaire(@PathVariable String documentId, @RequestBody StagiaireDTO stagiaireDTO) {
-        if (!stagiaireService.findByDocumentId(documentId).isPresent()) {
+        if (!stagiaireService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -78,7 +101,7 @@ public class StagiaireController {
 
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteStagiaire(@PathVariable String documentId) {
-        if (!stagiaireService.findByDocumentId(documentId).isPresent()) {
+        if (!stagiaireService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -1,6 +1,7 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.SuperieurHierarchiqueDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
 import com.example.back_gestion_Stage.Services.SuperieurHierarchiqueService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,12 +24,34 @@ public class SuperieurHierarchiqueController {
         return ResponseEntity.ok(superieurs);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<SuperieurHierarchiqueDTO>> getSuperieursPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(superieurHierarchiqueService.findActifsPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/tous")
     public ResponseEntity<List<SuperieurHierarchiqueDTO>> getAllSuperieursWithInactifs() {
         List<SuperieurHierarchiqueDTO> superieurs = superieurHierarchiqueService.findAll();
         return ResponseEntity.ok(superieurs);
     }
 
+    @GetMapping(value = "/tous", params = "limit")
+    public ResponseEntity<CursorPage<SuperieurHierarchiqueDTO>> getAllSuperieursWithInactifsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(superieurHierarchiqueService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/with-photo")
     public ResponseEntity<List<SuperieurHierarchiqueDTO>> getAllSuperieursWithPhoto() {
         List<SuperieurHierarchiqueDTO> superieurs = superieurHierarchiqueService.findAllWithPhoto();
@@ -67,7 +90,7 @@ public class SuperieurHierarchiqueController {
 
     @PutMapping("/{documentId}")
     public ResponseEntity<SuperieurHierarchiqueDTO> updateSuperieur(@PathVariable String documentId, @RequestBody SuperieurHierarchiqueDTO superieurDTO) {
-        if (!superieurHierarchiqueService.findByDocumentId(documentId).isPresent()) {
+        if (!superieurHierarchiqueService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
     
@@ -87,7 +110,7 @@ public class SuperieurHierarchiqueController {
 
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteSuperieur(@PathVariable String documentId) {
-        if (!superieurHierarchiqueService.findByDocumentId(documentId).isPresent()) {
+        if (!superieurHierarchiqueService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
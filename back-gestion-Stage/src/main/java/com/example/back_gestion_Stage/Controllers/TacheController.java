@@ -1,6 +1,7 @@
 package com.example.back_gestion_Stage.Controllers;
 
 import com.example.back_gestion_Stage.DTOs.TacheDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.Tache;
 import com.example.back_gestion_Stage.Services.TacheService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,17 @@ public class TacheController {
         return ResponseEntity.ok(taches);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<TacheDTO>> getTachesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(tacheService.findPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{documentId}")
     public ResponseEntity<TacheDTO> getTacheByDocumentId(@PathVariable String documentId) {
         return tacheService.findByDocumentId(documentId)
@@ -38,7 +50,7 @@ public class TacheController {
 
     @PutMapping("/{documentId}")
     public ResponseEntity<TacheDTO> updateTache(@PathVariable String documentId, @RequestBody TacheDTO tacheDTO) {
-        if (!tacheService.findByDocumentId(documentId).isPresent()) {
+        if (!tacheService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -49,7 +61,7 @@ public class TacheController {
 
     @DeleteMapping("/{documentId}")
     public ResponseEntity<Void> deleteTache(@PathVariable String documentId) {
-        if (!tacheService.findByDocumentId(documentId).isPresent()) {
+        if (!tacheService.existsByDocumentId(documentId)) {
             return ResponseEntity.notFound().build();
         }
 
@@ -0,0 +1,31 @@
+package com.example.back_gestion_Stage.Controllers;
+
+import com.example.back_gestion_Stage.Services.MediaFileService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Sert les URLs /uploads/... enregistrées dans MediaFile (photos, rapports PDF).
+ */
+@RestController
+@RequestMapping("/uploads")
+@CrossOrigin(origins = "*")
+public class UploadController {
+
+    @Autowired
+    private MediaFileService mediaFileService;
+
+    // {*chemin} inclut les sous-répertoires du stockage réparti (ab/cd/...)
+    @GetMapping("/{*chemin}")
+    public ResponseEntity<Resource> getUpload(@PathVariable String chemin) throws IOException {
+        Resource resource = mediaFileService.loadAsResource("/uploads" + chemin).orElse(null);
+        if (resource == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return MediaResponses.fichier(resource, null, null);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.back_gestion_Stage.DTOs;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+
+/**
+ * Réponse de /authenticate : le compte (mêmes champs qu'avant) et le jeton de session
+ * à renvoyer dans l'en-tête "Authorization: Bearer ...".
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AuthenticationResponseDTO extends CompteUtilisateurDTO {
+    private String token;
+    private String tokenType = "Bearer";
+    private Instant expiresAt;
+}
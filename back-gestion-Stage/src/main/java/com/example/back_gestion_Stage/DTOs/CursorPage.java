@@ -0,0 +1,13 @@
+package com.example.back_gestion_Stage.DTOs;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CursorPage<D> {
+    private List<D> items = new ArrayList<>();
+    private String nextCursor; // null lorsqu'il n'y a plus de page
+    private boolean hasMore;
+    private int limit;
+}
@@ -18,4 +18,6 @@ public class MediaFileDTO extends BaseDTO {
     private String provider;
     private String thumbnailUrl;
     private String mediumUrl;
+    private Boolean derivesPrets;
+    private String sha256;
 }
\ No newline at end of file
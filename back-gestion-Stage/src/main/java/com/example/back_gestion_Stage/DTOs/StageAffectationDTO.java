@@ -0,0 +1,11 @@
+package com.example.back_gestion_Stage.DTOs;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StageAffectationDTO {
+    private StageDTO stage;
+    private List<String> documentIdsIntrouvables = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.example.back_gestion_Stage.DTOs;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class UploadSessionDTO extends BaseDTO {
+    private String name;
+    private String mime;
+    private String alternativeText;
+    private String caption;
+    private Long tailleTotale;
+    // Position à laquelle envoyer le prochain morceau
+    private Long offset;
+    private LocalDateTime expiresAt;
+}
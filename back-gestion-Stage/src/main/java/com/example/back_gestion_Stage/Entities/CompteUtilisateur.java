@@ -1,11 +1,16 @@
 package com.example.back_gestion_Stage.Entities;
 
+import com.example.back_gestion_Stage.Services.ExistenceFilterListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 @Entity
-@Table(name = "comptes_utilisateurs")
+@Table(name = "comptes_utilisateurs", indexes = {
+    @Index(name = "idx_comptes_utilisateurs_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_comptes_utilisateurs_statut_created_at", columnList = "statut, created_at")
+})
+@EntityListeners(ExistenceFilterListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class CompteUtilisateur extends BaseEntity {
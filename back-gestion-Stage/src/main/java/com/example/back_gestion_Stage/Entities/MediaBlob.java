@@ -0,0 +1,33 @@
+package com.example.back_gestion_Stage.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Contenu physique unique, adressé par son SHA-256 et partagé par plusieurs MediaFile.
+ * Le fichier n'est supprimé que lorsque referenceCount retombe à zéro.
+ */
+@Entity
+@Table(name = "media_blobs", indexes = {
+    @Index(name = "idx_media_blobs_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_media_blobs_url", columnList = "url")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class MediaBlob extends BaseEntity {
+    @Column(unique = true, nullable = false, length = 64)
+    private String sha256;
+    
+    @Column(nullable = false)
+    private String url;
+    
+    // StorageProvider qui détient le contenu (null : stockage local historique)
+    private String provider;
+    
+    // Taille en octets
+    private Long taille;
+    
+    @Column(name = "reference_count", nullable = false)
+    private int referenceCount;
+}
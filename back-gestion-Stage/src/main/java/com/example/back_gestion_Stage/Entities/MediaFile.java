@@ -5,7 +5,13 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 @Entity
-@Table(name = "media_files")
+@Table(name = "media_files", indexes = {
+    @Index(name = "idx_media_files_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_media_files_sha256", columnList = "sha256"),
+    @Index(name = "idx_media_files_url", columnList = "url"),
+    @Index(name = "idx_media_files_thumbnail_url", columnList = "thumbnail_url"),
+    @Index(name = "idx_media_files_medium_url", columnList = "medium_url")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class MediaFile extends BaseEntity{
@@ -36,4 +42,12 @@ public class MediaFile extends BaseEntity{
     
     // Format medium pour les pages de détails
     private String mediumUrl;
+    
+    // Empreinte SHA-256 du contenu, calculée pendant l'écriture
+    @Column(length = 64)
+    private String sha256;
+    
+    // Passe à true une fois thumbnail et medium générés (les URLs pointent sur l'original avant)
+    @Column(name = "derives_prets")
+    private Boolean derivesPrets;
 }
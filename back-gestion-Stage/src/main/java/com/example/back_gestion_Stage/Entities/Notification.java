@@ -5,7 +5,12 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_notifications_compte_lue_created_at", columnList = "compte_utilisateur_document_id, lue, created_at"),
+    // Purge de rétention : parcours des seules lues, par date croissante
+    @Index(name = "idx_notifications_lue_created_at_id", columnList = "lue, created_at, id")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Notification extends BaseEntity {
@@ -0,0 +1,40 @@
+package com.example.back_gestion_Stage.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fichier physique à supprimer, enregistré dans la même transaction que la suppression
+ * du MediaFile. La ligne disparaît quand le StorageProvider a confirmé la suppression ;
+ * en cas d'échec elle est retentée à prochaineTentative.
+ */
+@Entity
+@Table(name = "pending_deletions", indexes = {
+    @Index(name = "idx_pending_deletions_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_pending_deletions_prochaine_tentative", columnList = "prochaine_tentative"),
+    @Index(name = "idx_pending_deletions_sha256", columnList = "sha256")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PendingDeletion extends BaseEntity {
+    private String provider;
+    
+    @Column(nullable = false)
+    private String url;
+    
+    // Empreinte du contenu : un nouvel upload identique annule la suppression
+    @Column(length = 64)
+    private String sha256;
+    
+    @Column(nullable = false)
+    private int tentatives;
+    
+    @Column(name = "prochaine_tentative", nullable = false)
+    private LocalDateTime prochaineTentative;
+    
+    @Column(name = "derniere_erreur", length = 1000)
+    private String derniereErreur;
+}
@@ -9,7 +9,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "stages")
+@Table(name = "stages", indexes = {
+    @Index(name = "idx_stages_created_at_id", columnList = "created_at, id")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Stage extends BaseEntity {
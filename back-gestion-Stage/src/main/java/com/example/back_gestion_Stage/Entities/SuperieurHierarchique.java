@@ -1,5 +1,6 @@
 package com.example.back_gestion_Stage.Entities;
 
+import com.example.back_gestion_Stage.Services.ExistenceFilterListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -8,7 +9,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "superieurs_hierarchiques")
+@Table(name = "superieurs_hierarchiques", indexes = {
+    @Index(name = "idx_superieurs_hierarchiques_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_superieurs_hierarchiques_statut_created_at", columnList = "statut, created_at")
+})
+@EntityListeners(ExistenceFilterListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class SuperieurHierarchique extends BaseEntity {
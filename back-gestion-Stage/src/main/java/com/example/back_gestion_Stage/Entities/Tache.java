@@ -7,7 +7,9 @@ import lombok.EqualsAndHashCode;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "taches")
+@Table(name = "taches", indexes = {
+    @Index(name = "idx_taches_created_at_id", columnList = "created_at, id")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Tache extends BaseEntity {
@@ -0,0 +1,40 @@
+package com.example.back_gestion_Stage.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * Upload en plusieurs morceaux en cours : les octets reçus sont écrits à leur position
+ * dans un fichier temporaire, "recu" indique jusqu'où le client peut reprendre.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "idx_upload_sessions_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_upload_sessions_expires_at", columnList = "expires_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class UploadSession extends BaseEntity {
+    @Column(nullable = false)
+    private String name;
+    
+    private String mime;
+    
+    private String alternativeText;
+    
+    private String caption;
+    
+    // Taille annoncée à l'ouverture, en octets
+    @Column(name = "taille_totale", nullable = false)
+    private Long tailleTotale;
+    
+    // Octets contigus reçus depuis le début du fichier
+    @Column(nullable = false)
+    private Long recu = 0L;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,35 @@
+package com.example.back_gestion_Stage.Repositories;
+
+import com.example.back_gestion_Stage.Entities.BaseEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Contrat commun à tous les repositories : accès par documentId via l'index unique
+ * de la colonne, sans jamais charger la table entière, et pagination par curseur
+ * sur (createdAt, id).
+ */
+@NoRepositoryBean
+public interface BaseRepository<T extends BaseEntity> extends JpaRepository<T, Long> {
+    Optional<T> findByDocumentId(String documentId);
+    boolean existsByDocumentId(String documentId);
+    List<T> findAllByDocumentIdIn(Collection<String> documentIds);
+
+    @Transactional
+    void deleteByDocumentId(String documentId);
+
+    @Query("SELECT e FROM #{#entityName} e ORDER BY e.createdAt DESC, e.id DESC")
+    List<T> findPageStart(Pageable pageable);
+
+    @Query("SELECT e FROM #{#entityName} e " +
+           "WHERE e.createdAt < :createdAt OR (e.createdAt = :createdAt AND e.id < :id) " +
+           "ORDER BY e.createdAt DESC, e.id DESC")
+    List<T> findPageAfter(LocalDateTime createdAt, Long id, Pageable pageable);
+}
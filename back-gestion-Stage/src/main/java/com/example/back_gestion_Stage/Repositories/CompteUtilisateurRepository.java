@@ -2,17 +2,29 @@
 package com.example.back_gestion_Stage.Repositories;
 
 import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.back_gestion_Stage.Entities.StatutEntite;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CompteUtilisateurRepository extends JpaRepository<CompteUtilisateur, Long> {
-    Optional<CompteUtilisateur> findByDocumentId(String documentId);
+public interface CompteUtilisateurRepository extends StatutRepository<CompteUtilisateur> {
     Optional<CompteUtilisateur> findByEmail(String email);
     List<CompteUtilisateur> findByTypeCompte(CompteUtilisateur.TypeCompte typeCompte);
     List<CompteUtilisateur> findByEntityDocumentId(String entityDocumentId);
+    List<CompteUtilisateur> findByTypeCompteAndStatut(CompteUtilisateur.TypeCompte typeCompte, StatutEntite statut);
+    List<CompteUtilisateur> findByEntityDocumentIdAndStatut(String entityDocumentId, StatutEntite statut);
     boolean existsByEmail(String email);
+    boolean existsByEmailAndStatut(String email, StatutEntite statut);
     List<CompteUtilisateur> findByEntityDocumentIdAndEntityType(String entityDocumentId, CompteUtilisateur.TypeCompte entityType);
+    List<CompteUtilisateur> findByEntityDocumentIdAndEntityTypeAndStatut(String entityDocumentId, CompteUtilisateur.TypeCompte entityType, StatutEntite statut);
+    
+    // Remplace le hash seulement s'il n'a pas changé entre-temps (mot de passe modifié en parallèle)
+    @Modifying
+    @Transactional
+    @Query("UPDATE CompteUtilisateur c SET c.motDePasse = :nouveau WHERE c.id = :id AND c.motDePasse = :ancien")
+    int remplacerMotDePasse(Long id, String ancien, String nouveau);
 }
\ No newline at end of file
@@ -1,25 +1,37 @@
 // EncadreurRepository.java
 package com.example.back_gestion_Stage.Repositories;
 
+import com.example.back_gestion_Stage.Config.CacheConfig;
 import com.example.back_gestion_Stage.Entities.Encadreur;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.back_gestion_Stage.Entities.StatutEntite;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EncadreurRepository extends JpaRepository<Encadreur, Long> {
-    Optional<Encadreur> findByDocumentId(String documentId);
+public interface EncadreurRepository extends StatutRepository<Encadreur> {
     Optional<Encadreur> findByEmail(String email);
     Optional<Encadreur> findByCin(String cin);
     List<Encadreur> findBySuperieurHierarchiqueDocumentId(String superieurDocumentId);
     List<Encadreur> findByDepartement(String departement);
+    List<Encadreur> findBySuperieurHierarchiqueDocumentIdAndStatut(String superieurDocumentId, StatutEntite statut);
+    List<Encadreur> findByDepartementAndStatut(String departement, StatutEntite statut);
     boolean existsByEmail(String email);
     boolean existsByCin(String cin);
+    boolean existsByEmailAndStatut(String email, StatutEntite statut);
+    boolean existsByCinAndStatut(String cin, StatutEntite statut);
+
+    // documentId -> id ne change jamais : mis en cache, vidé par EncadreurService à chaque écriture
+    @Cacheable(cacheNames = CacheConfig.ENCADREURS, key = "'id:' + #documentId")
+    @Query("SELECT e.id FROM Encadreur e WHERE e.documentId = :documentId")
+    Optional<Long> findIdByDocumentId(String documentId);
     
     @Query("SELECT e FROM Encadreur e LEFT JOIN FETCH e.superieurHierarchique")
     List<Encadreur> findAllWithSuperieur();
+    @Query("SELECT e FROM Encadreur e LEFT JOIN FETCH e.superieurHierarchique WHERE e.statut = :statut")
+    List<Encadreur> findAllWithSuperieurByStatut(StatutEntite statut);
     @Query("SELECT e FROM Encadreur e LEFT JOIN FETCH e.superieurHierarchique LEFT JOIN FETCH e.photo")
 List<Encadreur> findAllWithRelations();
 }
\ No newline at end of file
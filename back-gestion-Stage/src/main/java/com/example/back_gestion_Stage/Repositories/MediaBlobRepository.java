@@ -0,0 +1,23 @@
+package com.example.back_gestion_Stage.Repositories;
+
+import com.example.back_gestion_Stage.Entities.MediaBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaBlobRepository extends BaseRepository<MediaBlob> {
+    
+    Optional<MediaBlob> findBySha256(String sha256);
+    
+    @Query("SELECT b.url FROM MediaBlob b WHERE b.url IN :urls")
+    List<String> findUrlsIn(Collection<String> urls);
+    
+    // Verrou ligne pour incrémenter / décrémenter referenceCount sans perte de mise à jour
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MediaBlob> findForUpdateBySha256(String sha256);
+}
@@ -1,17 +1,17 @@
 package com.example.back_gestion_Stage.Repositories;
 
 import com.example.back_gestion_Stage.Entities.MediaFile;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MediaFileRepository extends JpaRepository<MediaFile, Long> {
-    
-    // Trouver par documentId
-    Optional<MediaFile> findByDocumentId(String documentId);
+public interface MediaFileRepository extends BaseRepository<MediaFile> {
     
     // Trouver par nom de fichier
     Optional<MediaFile> findByName(String name);
@@ -57,6 +57,54 @@ public interface MediaFileRepository extends JpaRepository<MediaFile, Long> {
     // Compter les fichiers par type MIME
     Long countByMime(String mime);
     
-    // Supprimer par documentId
-    void deleteByDocumentId(String documentId);
+    // Statistiques agrégées côté base : une ligne par groupe (count, somme des tailles en KB)
+    @Query("SELECT m.mime, m.provider, COUNT(m), COALESCE(SUM(m.size), 0) FROM MediaFile m GROUP BY m.mime, m.provider")
+    List<Object[]> statsParMimeEtProvider();
+
+    @Query("SELECT m.ext, COUNT(m), COALESCE(SUM(m.size), 0) FROM MediaFile m GROUP BY m.ext")
+    List<Object[]> statsParExtension();
+
+    @Query("SELECT YEAR(m.createdAt), MONTH(m.createdAt), COUNT(m), COALESCE(SUM(m.size), 0) FROM MediaFile m " +
+           "GROUP BY YEAR(m.createdAt), MONTH(m.createdAt) ORDER BY YEAR(m.createdAt), MONTH(m.createdAt)")
+    List<Object[]> statsParMois();
+
+    // Médias encore stockés à plat, parcourus par id croissant (migration vers le stockage réparti)
+    @Query("SELECT m FROM MediaFile m WHERE (m.provider IS NULL OR m.provider = :provider) AND m.id > :apres ORDER BY m.id")
+    List<MediaFile> findLotParProvider(String provider, Long apres, Pageable pageable);
+
+    List<MediaFile> findBySha256(String sha256);
+
+    // Réconciliation du volume d'upload : URLs encore référencées parmi un lot de fichiers
+    @Query("SELECT m.url, m.thumbnailUrl, m.mediumUrl FROM MediaFile m " +
+           "WHERE m.url IN :urls OR m.thumbnailUrl IN :urls OR m.mediumUrl IN :urls")
+    List<Object[]> findUrlsReferencees(Collection<String> urls);
+
+    @Query("SELECT m FROM MediaFile m WHERE m.id > :apres ORDER BY m.id")
+    List<MediaFile> findLotApres(Long apres, Pageable pageable);
+
+    // Un fichier au même contenu dont les dérivés sont déjà générés
+    Optional<MediaFile> findFirstBySha256AndDerivesPretsTrue(String sha256);
+
+    // Images dont les dérivés n'ont pas été générés (reprise planifiée)
+    @Query("SELECT m.id FROM MediaFile m WHERE m.derivesPrets = false AND m.createdAt < :avant ORDER BY m.id")
+    List<Long> findIdsDerivesEnAttente(LocalDateTime avant, Pageable pageable);
+
+    // N'écrit que les colonnes des dérivés, et seulement si l'original n'a pas changé d'URL
+    @Modifying
+    @Query("UPDATE MediaFile m SET m.width = :largeur, m.height = :hauteur, m.thumbnailUrl = :thumbnailUrl, " +
+           "m.mediumUrl = :mediumUrl, m.derivesPrets = true WHERE m.id = :id AND m.url = :url")
+    int enregistrerDerives(Long id, String url, Integer largeur, Integer hauteur, String thumbnailUrl, String mediumUrl);
+
+    // Migration vers le stockage réparti : chaque URL n'est remplacée que si elle n'a pas changé depuis la lecture
+    @Modifying
+    @Query("UPDATE MediaFile m SET m.url = :nouvelle, m.provider = :provider WHERE m.id = :id AND m.url = :ancienne")
+    int migrerUrl(Long id, String ancienne, String nouvelle, String provider);
+
+    @Modifying
+    @Query("UPDATE MediaFile m SET m.thumbnailUrl = :nouvelle WHERE m.id = :id AND m.thumbnailUrl = :ancienne")
+    int migrerThumbnailUrl(Long id, String ancienne, String nouvelle);
+
+    @Modifying
+    @Query("UPDATE MediaFile m SET m.mediumUrl = :nouvelle WHERE m.id = :id AND m.mediumUrl = :ancienne")
+    int migrerMediumUrl(Long id, String ancienne, String nouvelle);
 }
\ No newline at end of file
@@ -1,16 +1,15 @@
 package com.example.back_gestion_Stage.Repositories;
 
 import com.example.back_gestion_Stage.Entities.Notification;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    Optional<Notification> findByDocumentId(String documentId);
+public interface NotificationRepository extends BaseRepository<Notification> {
     List<Notification> findByCompteUtilisateurDocumentId(String compteUtilisateurDocumentId);
     List<Notification> findByCompteUtilisateurDocumentIdAndLue(String compteUtilisateurDocumentId, boolean lue);
     List<Notification> findByType(Notification.TypeNotification type);
@@ -19,10 +18,31 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.compteUtilisateurDocumentId = :compteUtilisateurDocumentId AND n.lue = false")
     Long countByCompteUtilisateurDocumentIdAndNonLues(String compteUtilisateurDocumentId);
     
+    // Une ligne par compte ayant des non lues : [compteUtilisateurDocumentId, nombre]
+    @Query("SELECT n.compteUtilisateurDocumentId, COUNT(n) FROM Notification n WHERE n.lue = false GROUP BY n.compteUtilisateurDocumentId")
+    List<Object[]> countNonLuesParCompte();
+    
     @Modifying
     @Query("UPDATE Notification n SET n.lue = true WHERE n.compteUtilisateurDocumentId = :compteUtilisateurDocumentId AND n.lue = false")
-    void marquerToutesCommeLues(String compteUtilisateurDocumentId);
+    int marquerToutesCommeLues(String compteUtilisateurDocumentId);
+    
+    // Purge par tranches bornées : chaque appel ne verrouille qu'au plus "taille" lignes.
+    // Tranches prises dans l'ordre de idx_notifications_lue_created_at_id : les non lues,
+    // jamais supprimées, ne sont pas reparcourues à chaque tranche
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE id IN (" +
+                   "SELECT id FROM notifications WHERE lue = true AND created_at < :avant " +
+                   "ORDER BY lue, created_at, id LIMIT :taille)",
+           nativeQuery = true)
+    int deleteLuesAvant(LocalDateTime avant, int taille);
     
     @Query("SELECT n FROM Notification n WHERE n.compteUtilisateurDocumentId = :compteUtilisateurDocumentId ORDER BY n.createdAt DESC")
     List<Notification> findByCompteUtilisateurDocumentIdOrderByDateDesc(String compteUtilisateurDocumentId);
+    
+    @Query("SELECT n FROM Notification n WHERE n.compteUtilisateurDocumentId = :compteUtilisateurDocumentId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageStartByCompte(String compteUtilisateurDocumentId, Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n WHERE n.compteUtilisateurDocumentId = :compteUtilisateurDocumentId " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageAfterByCompte(String compteUtilisateurDocumentId, LocalDateTime createdAt, Long id, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.back_gestion_Stage.Repositories;
+
+import com.example.back_gestion_Stage.Entities.PendingDeletion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PendingDeletionRepository extends BaseRepository<PendingDeletion> {
+    
+    // Verrou ligne : la suppression physique et l'annulation par un nouvel upload s'excluent
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<PendingDeletion> findForUpdateById(Long id);
+    
+    @Query("SELECT p.id FROM PendingDeletion p WHERE p.prochaineTentative <= :maintenant ORDER BY p.prochaineTentative")
+    List<Long> findIdsEchus(LocalDateTime maintenant, Pageable pageable);
+    
+    @Query("SELECT p.url FROM PendingDeletion p WHERE p.url IN :urls")
+    List<String> findUrlsIn(Collection<String> urls);
+    
+    @Modifying
+    @Query("DELETE FROM PendingDeletion p WHERE p.sha256 = :sha256")
+    int deleteBySha256(String sha256);
+}
@@ -2,16 +2,13 @@
 package com.example.back_gestion_Stage.Repositories;
 
 import com.example.back_gestion_Stage.Entities.Stage;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface StageRepository extends JpaRepository<Stage, Long> {
-    Optional<Stage> findByDocumentId(String documentId);
+public interface StageRepository extends BaseRepository<Stage> {
     List<Stage> findByEncadreurDocumentId(String encadreurDocumentId);
     List<Stage> findBySuperieurHierarchiqueDocumentId(String superieurDocumentId);
     List<Stage> findByStatutStage(Stage.StatutStage statutStage);
@@ -0,0 +1,32 @@
+package com.example.back_gestion_Stage.Repositories;
+
+import com.example.back_gestion_Stage.Entities.StatutEntite;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Projection plate d'un stagiaire pour les listes : relations et indicateur de stage
+ * actif résolus dans la même requête SQL, sans instancier d'entité.
+ */
+public interface StagiaireListView {
+    Long getId();
+    String getDocumentId();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    String getNom();
+    String getPrenom();
+    String getEmail();
+    String getTelephone();
+    String getCin();
+    String getEcole();
+    String getFiliere();
+    String getNiveauEtude();
+    LocalDate getDateNaissance();
+    String getAdresse();
+    StatutEntite getStatut();
+    String getEncadreurDocumentId();
+    String getPhotoUrl();
+    String getThumbnailUrl();
+    String getMediumPhotoUrl();
+    Boolean getHasActiveStage();
+}
@@ -1,26 +1,73 @@
 // StagiaireRepository.java
 package com.example.back_gestion_Stage.Repositories;
 
+import com.example.back_gestion_Stage.Entities.Stage;
 import com.example.back_gestion_Stage.Entities.Stagiaire;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.back_gestion_Stage.Entities.StatutEntite;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StagiaireRepository extends JpaRepository<Stagiaire, Long> {
-    Optional<Stagiaire> findByDocumentId(String documentId);
+public interface StagiaireRepository extends StatutRepository<Stagiaire> {
+    
+    // Projection des listes : une seule requête quel que soit le nombre de lignes
+    String LIST_VIEW_SELECT = "SELECT s.id AS id, s.documentId AS documentId, s.createdAt AS createdAt, s.updatedAt AS updatedAt, " +
+            "s.nom AS nom, s.prenom AS prenom, s.email AS email, s.telephone AS telephone, s.cin AS cin, " +
+            "s.ecole AS ecole, s.filiere AS filiere, s.niveauEtude AS niveauEtude, s.dateNaissance AS dateNaissance, " +
+            "s.adresse AS adresse, s.statut AS statut, e.documentId AS encadreurDocumentId, " +
+            "p.url AS photoUrl, p.thumbnailUrl AS thumbnailUrl, p.mediumUrl AS mediumPhotoUrl, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM Stage st JOIN st.stagiaires sa WHERE sa.id = s.id " +
+            "AND st.statutStage = :stageEnCours AND st.dateDebut <= :aujourdhui AND st.dateFin >= :aujourdhui) " +
+            "THEN true ELSE false END AS hasActiveStage " +
+            "FROM Stagiaire s LEFT JOIN s.encadreur e LEFT JOIN s.photo p ";
+    
     Optional<Stagiaire> findByEmail(String email);
     Optional<Stagiaire> findByCin(String cin);
     List<Stagiaire> findByEncadreurDocumentId(String encadreurDocumentId);
     List<Stagiaire> findByEcole(String ecole);
     List<Stagiaire> findByFiliere(String filiere);
+    List<Stagiaire> findByEncadreurDocumentIdAndStatut(String encadreurDocumentId, StatutEntite statut);
+    List<Stagiaire> findByEcoleAndStatut(String ecole, StatutEntite statut);
+    List<Stagiaire> findByFiliereAndStatut(String filiere, StatutEntite statut);
     boolean existsByEmail(String email);
     boolean existsByCin(String cin);
+    boolean existsByEmailAndStatut(String email, StatutEntite statut);
+    boolean existsByCinAndStatut(String cin, StatutEntite statut);
     
     @Query("SELECT s FROM Stagiaire s LEFT JOIN FETCH s.encadreur")
     List<Stagiaire> findAllWithEncadreur();
+    @Query("SELECT s FROM Stagiaire s LEFT JOIN FETCH s.encadreur WHERE s.statut = :statut")
+    List<Stagiaire> findAllWithEncadreurByStatut(StatutEntite statut);
     @Query("SELECT s FROM Stagiaire s LEFT JOIN FETCH s.encadreur LEFT JOIN FETCH s.photo")
     List<Stagiaire> findAllWithRelations();
+    
+    @Query(LIST_VIEW_SELECT + "ORDER BY s.id")
+    List<StagiaireListView> findAllListViews(Stage.StatutStage stageEnCours, LocalDate aujourdhui);
+    @Query(LIST_VIEW_SELECT + "WHERE s.statut = :statut ORDER BY s.id")
+    List<StagiaireListView> findListViewsByStatut(StatutEntite statut, Stage.StatutStage stageEnCours, LocalDate aujourdhui);
+    @Query(LIST_VIEW_SELECT + "WHERE e.documentId = :encadreurDocumentId AND s.statut = :statut ORDER BY s.id")
+    List<StagiaireListView> findListViewsByEncadreurAndStatut(String encadreurDocumentId, StatutEntite statut,
+                                                             Stage.StatutStage stageEnCours, LocalDate aujourdhui);
+    
+    // Pagination par curseur (createdAt DESC, id DESC) sur la projection
+    @Query(LIST_VIEW_SELECT + "ORDER BY s.createdAt DESC, s.id DESC")
+    List<StagiaireListView> findListViewsPageStart(Stage.StatutStage stageEnCours, LocalDate aujourdhui, Pageable pageable);
+    @Query(LIST_VIEW_SELECT + "WHERE s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<StagiaireListView> findListViewsPageAfter(LocalDateTime createdAt, Long id, Stage.StatutStage stageEnCours,
+                                                   LocalDate aujourdhui, Pageable pageable);
+    @Query(LIST_VIEW_SELECT + "WHERE s.statut = :statut ORDER BY s.createdAt DESC, s.id DESC")
+    List<StagiaireListView> findListViewsPageStartByStatut(StatutEntite statut, Stage.StatutStage stageEnCours,
+                                                           LocalDate aujourdhui, Pageable pageable);
+    @Query(LIST_VIEW_SELECT + "WHERE s.statut = :statut " +
+           "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<StagiaireListView> findListViewsPageAfterByStatut(StatutEntite statut, LocalDateTime createdAt, Long id,
+                                                           Stage.StatutStage stageEnCours, LocalDate aujourdhui,
+                                                           Pageable pageable);
 }
\ No newline at end of file
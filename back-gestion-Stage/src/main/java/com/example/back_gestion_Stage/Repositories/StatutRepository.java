@@ -0,0 +1,27 @@
+package com.example.back_gestion_Stage.Repositories;
+
+import com.example.back_gestion_Stage.Entities.BaseEntity;
+import com.example.back_gestion_Stage.Entities.StatutEntite;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositories des entités portant un champ {@code statut} (ACTIF / INACTIF).
+ */
+@NoRepositoryBean
+public interface StatutRepository<T extends BaseEntity> extends BaseRepository<T> {
+
+    List<T> findByStatut(StatutEntite statut);
+    long countByStatut(StatutEntite statut);
+
+    @Query("SELECT e FROM #{#entityName} e WHERE e.statut = :statut ORDER BY e.createdAt DESC, e.id DESC")
+    List<T> findPageStartByStatut(StatutEntite statut, Pageable pageable);
+
+    @Query("SELECT e FROM #{#entityName} e WHERE e.statut = :statut " +
+           "AND (e.createdAt < :createdAt OR (e.createdAt = :createdAt AND e.id < :id)) " +
+           "ORDER BY e.createdAt DESC, e.id DESC")
+    List<T> findPageAfterByStatut(StatutEntite statut, LocalDateTime createdAt, Long id, Pageable pageable);
+}
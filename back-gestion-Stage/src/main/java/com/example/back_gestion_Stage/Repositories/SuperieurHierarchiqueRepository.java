@@ -1,21 +1,33 @@
 package com.example.back_gestion_Stage.Repositories;
 
+import com.example.back_gestion_Stage.Config.CacheConfig;
+import com.example.back_gestion_Stage.Entities.StatutEntite;
 import com.example.back_gestion_Stage.Entities.SuperieurHierarchique;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SuperieurHierarchiqueRepository extends JpaRepository<SuperieurHierarchique, Long> {
-    Optional<SuperieurHierarchique> findByDocumentId(String documentId);
+public interface SuperieurHierarchiqueRepository extends StatutRepository<SuperieurHierarchique> {
     Optional<SuperieurHierarchique> findByEmail(String email);
     Optional<SuperieurHierarchique> findByCin(String cin);
     List<SuperieurHierarchique> findByDepartement(String departement);
+    List<SuperieurHierarchique> findByDepartementAndStatut(String departement, StatutEntite statut);
+    long countByDepartementAndStatut(String departement, StatutEntite statut);
     boolean existsByEmail(String email);
     boolean existsByCin(String cin);
+    boolean existsByEmailAndStatut(String email, StatutEntite statut);
+    boolean existsByCinAndStatut(String cin, StatutEntite statut);
+
+    // documentId -> id ne change jamais : mis en cache, vidé par SuperieurHierarchiqueService à chaque écriture
+    @Cacheable(cacheNames = CacheConfig.SUPERIEURS, key = "'id:' + #documentId")
+    @Query("SELECT e.id FROM SuperieurHierarchique e WHERE e.documentId = :documentId")
+    Optional<Long> findIdByDocumentId(String documentId);
     
     @Query("SELECT s FROM SuperieurHierarchique s LEFT JOIN FETCH s.photo")
     List<SuperieurHierarchique> findAllWithPhoto();
+    @Query("SELECT s FROM SuperieurHierarchique s LEFT JOIN FETCH s.photo WHERE s.statut = :statut")
+    List<SuperieurHierarchique> findAllWithPhotoByStatut(StatutEntite statut);
 }
\ No newline at end of file
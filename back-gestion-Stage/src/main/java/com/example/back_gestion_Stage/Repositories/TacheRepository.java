@@ -2,16 +2,13 @@
 package com.example.back_gestion_Stage.Repositories;
 
 import com.example.back_gestion_Stage.Entities.Tache;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface TacheRepository extends JpaRepository<Tache, Long> {
-    Optional<Tache> findByDocumentId(String documentId);
+public interface TacheRepository extends BaseRepository<Tache> {
     List<Tache> findByStatut(Tache.StatutTache statut);
     List<Tache> findByDateFinBeforeAndStatutNot(LocalDateTime date, Tache.StatutTache statut);
     
@@ -0,0 +1,12 @@
+package com.example.back_gestion_Stage.Repositories;
+
+import com.example.back_gestion_Stage.Entities.UploadSession;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends BaseRepository<UploadSession> {
+    
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime date);
+}
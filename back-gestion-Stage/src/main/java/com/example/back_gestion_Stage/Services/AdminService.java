@@ -1,9 +1,12 @@
 package com.example.back_gestion_Stage.Services;
 
+import com.example.back_gestion_Stage.Config.CacheConfig;
 import com.example.back_gestion_Stage.Entities.Admin;
 import com.example.back_gestion_Stage.DTOs.AdminDTO;
 import com.example.back_gestion_Stage.Repositories.AdminRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
 
@@ -13,6 +16,9 @@ public class AdminService extends BaseService<Admin, AdminDTO> {
     @Autowired
     private AdminRepository adminRepository;
 
+    @Autowired
+    private ExistenceFilterService existenceFilterService;
+
     @Override
     protected AdminRepository getRepository() {
         return adminRepository;
@@ -64,25 +70,35 @@ public class AdminService extends BaseService<Admin, AdminDTO> {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ADMINS, allEntries = true)
+    public AdminDTO save(AdminDTO dto) {
+        return super.save(dto);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ADMINS, key = "'documentId:' + #documentId")
     public Optional<AdminDTO> findByDocumentId(String documentId) {
-        return adminRepository.findByDocumentId(documentId)
-                .map(this::convertToDto);
+        return super.findByDocumentId(documentId);
     }
 
+    @Cacheable(cacheNames = CacheConfig.ADMINS, key = "'email:' + #email")
     public Optional<AdminDTO> findByEmail(String email) {
         return adminRepository.findByEmail(email)
                 .map(this::convertToDto);
     }
 
     public boolean existsByEmail(String email) {
-        return adminRepository.existsByEmail(email);
+        return existenceFilterService.existe(Admin.class, "email", email,
+                () -> adminRepository.existsByEmail(email));
     }
 
     public boolean existsByCin(String cin) {
-        return adminRepository.existsByCin(cin);
+        return existenceFilterService.existe(Admin.class, "cin", cin,
+                () -> adminRepository.existsByCin(cin));
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ADMINS, allEntries = true)
     public void deleteByDocumentId(String documentId) {
         adminRepository.findByDocumentId(documentId)
                 .ifPresent(admin -> adminRepository.deleteById(admin.getId()));
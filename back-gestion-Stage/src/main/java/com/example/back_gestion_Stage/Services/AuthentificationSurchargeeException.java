@@ -0,0 +1,12 @@
+package com.example.back_gestion_Stage.Services;
+
+/**
+ * Levée quand la file de vérification des mots de passe est pleine : la connexion est
+ * refusée immédiatement (503) plutôt que d'occuper un thread de requête en attente.
+ */
+public class AuthentificationSurchargeeException extends RuntimeException {
+
+    public AuthentificationSurchargeeException() {
+        super("Trop de connexions simultanées, réessayez dans quelques instants");
+    }
+}
@@ -2,35 +2,92 @@ package com.example.back_gestion_Stage.Services;
 
 import com.example.back_gestion_Stage.Entities.BaseEntity;
 import com.example.back_gestion_Stage.DTOs.BaseDTO;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
+import com.example.back_gestion_Stage.Entities.StatutEntite;
+import com.example.back_gestion_Stage.Repositories.BaseRepository;
+import com.example.back_gestion_Stage.Repositories.StatutRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class BaseService<T extends BaseEntity, D extends BaseDTO> {
     
-    protected abstract JpaRepository<T, Long> getRepository();
+    public static final int MAX_PAGE_SIZE = 200;
+    
+    protected abstract BaseRepository<T> getRepository();
     protected abstract D convertToDto(T entity);
     protected abstract T convertToEntity(D dto);
     
     // NOUVELLE MÉTHODE ABSTRAITE POUR LA MISE À JOUR
     protected abstract void updateEntityFromDto(T entity, D dto);
     
-    public List<D> findAll() {
-        return getRepository().findAll().stream()
+    // Conversion d'une liste : les services peuvent la surcharger pour charger les relations en lot
+    protected List<D> convertToDtos(List<T> entities) {
+        return entities.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    public List<D> findAll() {
+        return convertToDtos(getRepository().findAll());
+    }
+    
+    // PAGINATION PAR CURSEUR (createdAt DESC, id DESC)
+    public CursorPage<D> findPage(String cursor, int limit) {
+        return findPage(cursor, limit,
+                getRepository()::findPageStart,
+                (position, pageable) -> getRepository().findPageAfter(position.createdAt(), position.id(), pageable));
+    }
+    
+    protected CursorPage<D> findPageByStatut(StatutRepository<T> repository, StatutEntite statut, String cursor, int limit) {
+        return findPage(cursor, limit,
+                pageable -> repository.findPageStartByStatut(statut, pageable),
+                (position, pageable) -> repository.findPageAfterByStatut(statut, position.createdAt(), position.id(), pageable));
+    }
+    
+    protected CursorPage<D> findPage(String cursor, int limit,
+                                     Function<Pageable, List<T>> premierePage,
+                                     BiFunction<KeysetCursor, Pageable, List<T>> pageSuivante) {
+        return findPage(cursor, limit, premierePage, pageSuivante, KeysetCursor::of, this::convertToDtos);
+    }
+    
+    // Variante pour les services qui paginent une projection plutôt que des entités
+    protected <R> CursorPage<D> findPage(String cursor, int limit,
+                                         Function<Pageable, List<R>> premierePage,
+                                         BiFunction<KeysetCursor, Pageable, List<R>> pageSuivante,
+                                         Function<R, KeysetCursor> position,
+                                         Function<List<R>, List<D>> conversion) {
+        int taille = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Une ligne de plus que demandé pour savoir s'il reste une page
+        Pageable pageable = PageRequest.of(0, taille + 1);
+        List<R> lignes = (cursor == null || cursor.isBlank())
+                ? premierePage.apply(pageable)
+                : pageSuivante.apply(KeysetCursor.decode(cursor), pageable);
+        
+        boolean hasMore = lignes.size() > taille;
+        List<R> items = hasMore ? lignes.subList(0, taille) : lignes;
+        
+        CursorPage<D> page = new CursorPage<>();
+        page.setItems(conversion.apply(items));
+        page.setHasMore(hasMore);
+        page.setLimit(taille);
+        if (hasMore) {
+            page.setNextCursor(position.apply(items.get(items.size() - 1)).encode());
+        }
+        return page;
+    }
+    
     public Optional<D> findById(Long id) {
         return getRepository().findById(id)
                 .map(this::convertToDto);
     }
     
     public Optional<D> findByDocumentId(String documentId) {
-        return getRepository().findAll().stream()
-                .filter(entity -> entity.getDocumentId().equals(documentId))
-                .findFirst()
+        return getRepository().findByDocumentId(documentId)
                 .map(this::convertToDto);
     }
     
@@ -62,7 +119,11 @@ public abstract class BaseService<T extends BaseEntity, D extends BaseDTO> {
         getRepository().deleteById(id);
     }
     
+    public boolean existsByDocumentId(String documentId) {
+        return getRepository().existsByDocumentId(documentId);
+    }
+    
     public void deleteByDocumentId(String documentId) {
-        // Cette méthode doit être implémentée dans chaque service spécifique
+        getRepository().deleteByDocumentId(documentId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.DTOs.MediaFileDTO;
+import com.example.back_gestion_Stage.DTOs.UploadSessionDTO;
+import com.example.back_gestion_Stage.Entities.UploadSession;
+import com.example.back_gestion_Stage.Repositories.UploadSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Upload reprenable : ouverture de session, envoi de morceaux par offset, finalisation.
+ * Chaque morceau est écrit à sa position dans un seul fichier temporaire (écriture NIO
+ * positionnelle), si bien qu'il n'y a rien à assembler : la finalisation calcule l'empreinte
+ * puis renomme le fichier vers son emplacement définitif via MediaFileService.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final String REPERTOIRE_SESSIONS = ".sessions";
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private MediaFileService mediaFileService;
+
+    @Value("${app.upload.chunk.max-size:8MB}")
+    private DataSize tailleMaxMorceau;
+
+    @Value("${app.upload.session.ttl-hours:24}")
+    private long dureeSessionHeures;
+
+    // Un seul morceau écrit à la fois par session ; l'entrée n'est retirée que sous son verrou,
+    // une fois la session terminée
+    private final Map<String, ReentrantLock> verrous = new ConcurrentHashMap<>();
+
+    public UploadSessionDTO ouvrir(UploadSessionDTO demande) throws IOException {
+        if (demande.getName() == null || demande.getTailleTotale() == null || demande.getTailleTotale() <= 0) {
+            throw new IllegalArgumentException("name et tailleTotale sont obligatoires");
+        }
+        if (demande.getTailleTotale() > mediaFileService.getMaxUploadSize().toBytes()) {
+            throw new FichierTropVolumineuxException(mediaFileService.getMaxUploadSize());
+        }
+
+        UploadSession session = new UploadSession();
+        session.setName(demande.getName());
+        session.setMime(demande.getMime());
+        session.setAlternativeText(demande.getAlternativeText());
+        session.setCaption(demande.getCaption());
+        session.setTailleTotale(demande.getTailleTotale());
+        session.setRecu(0L);
+        session.setExpiresAt(LocalDateTime.now().plusHours(dureeSessionHeures));
+        UploadSession savedSession = uploadSessionRepository.save(session);
+
+        Path fichier = fichierTemporaire(savedSession.getDocumentId());
+        Files.createDirectories(fichier.getParent());
+        Files.createFile(fichier);
+        return convertToDto(savedSession);
+    }
+
+    public Optional<UploadSessionDTO> findByDocumentId(String documentId) {
+        return uploadSessionRepository.findByDocumentId(documentId).map(this::convertToDto);
+    }
+
+    /**
+     * Écrit un morceau à partir de offset. Un offset inférieur à "recu" réécrit des octets
+     * déjà reçus (renvoi après coupure) ; un offset supérieur laisserait un trou et est refusé.
+     */
+    public UploadSessionDTO ecrireMorceau(String documentId, long offset, InputStream contenu) throws IOException {
+        ReentrantLock verrou = verrouiller(documentId);
+        if (verrou == null) {
+            throw new IllegalStateException("Un morceau est déjà en cours d'écriture pour cette session");
+        }
+        boolean terminee = true;
+        try {
+            UploadSession session = uploadSessionRepository.findByDocumentId(documentId).orElseThrow();
+            terminee = false;
+            if (offset < 0 || offset > session.getRecu()) {
+                throw new IllegalStateException("Offset attendu : " + session.getRecu());
+            }
+
+            long position = offset;
+            try (FileChannel canal = FileChannel.open(fichierTemporaire(documentId), StandardOpenOption.WRITE)) {
+                byte[] tampon = new byte[TAILLE_TAMPON];
+                int lus;
+                while ((lus = contenu.read(tampon)) != -1) {
+                    if (position + lus - offset > tailleMaxMorceau.toBytes()) {
+                        throw new FichierTropVolumineuxException(tailleMaxMorceau);
+                    }
+                    if (position + lus > session.getTailleTotale()) {
+                        throw new IllegalArgumentException("Le morceau dépasse la taille annoncée");
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(tampon, 0, lus);
+                    while (buffer.hasRemaining()) {
+                        position += canal.write(buffer, position);
+                    }
+                }
+            } finally {
+                // Même interrompu, ce qui a été écrit reste acquis pour la reprise
+                session.setRecu(Math.max(session.getRecu(), position));
+                session.setExpiresAt(LocalDateTime.now().plusHours(dureeSessionHeures));
+                uploadSessionRepository.save(session);
+            }
+            return convertToDto(session);
+        } finally {
+            liberer(documentId, verrou, terminee);
+        }
+    }
+
+    public MediaFileDTO finaliser(String documentId) throws IOException {
+        ReentrantLock verrou = verrouiller(documentId);
+        if (verrou == null) {
+            throw new IllegalStateException("Un morceau est encore en cours d'écriture pour cette session");
+        }
+        boolean terminee = true;
+        try {
+            UploadSession session = uploadSessionRepository.findByDocumentId(documentId).orElseThrow();
+            terminee = false;
+            if (!session.getRecu().equals(session.getTailleTotale())) {
+                throw new IllegalStateException("Upload incomplet : " + session.getRecu() + " / " + session.getTailleTotale() + " octets");
+            }
+
+            Path fichier = fichierTemporaire(documentId);
+            String sha256 = empreinte(fichier);
+            MediaFileDTO mediaFile = mediaFileService.enregistrerContenu(fichier, sha256, session.getTailleTotale(),
+                    session.getName(), session.getMime(), session.getAlternativeText(), session.getCaption());
+            uploadSessionRepository.deleteById(session.getId());
+            terminee = true;
+            return mediaFile;
+        } finally {
+            liberer(documentId, verrou, terminee);
+        }
+    }
+
+    // Sous le verrou : le fichier .part n'est jamais supprimé pendant l'écriture d'un morceau
+    public void annuler(String documentId) throws IOException {
+        ReentrantLock verrou = verrouiller(documentId);
+        if (verrou == null) {
+            throw new IllegalStateException("Un morceau est en cours d'écriture pour cette session");
+        }
+        try {
+            UploadSession session = uploadSessionRepository.findByDocumentId(documentId).orElseThrow();
+            supprimerSession(session);
+        } finally {
+            liberer(documentId, verrou, true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.session.sweep-ms:3600000}")
+    public void purgerSessionsExpirees() {
+        for (UploadSession expiree : uploadSessionRepository.findByExpiresAtBefore(LocalDateTime.now())) {
+            ReentrantLock verrou = verrouiller(expiree.getDocumentId());
+            if (verrou == null) {
+                // Morceau en cours : la session vient d'être prolongée
+                continue;
+            }
+            try {
+                // Relue sous le verrou : un morceau reçu entre-temps a repoussé l'expiration
+                Optional<UploadSession> session = uploadSessionRepository.findByDocumentId(expiree.getDocumentId())
+                        .filter(s -> s.getExpiresAt().isBefore(LocalDateTime.now()));
+                if (session.isPresent()) {
+                    supprimerSession(session.get());
+                }
+            } catch (IOException e) {
+                // Nouvelle tentative au prochain passage
+            } finally {
+                liberer(expiree.getDocumentId(), verrou, true);
+            }
+        }
+    }
+
+    private void supprimerSession(UploadSession session) throws IOException {
+        uploadSessionRepository.deleteById(session.getId());
+        Files.deleteIfExists(fichierTemporaire(session.getDocumentId()));
+    }
+
+    private String empreinte(Path fichier) throws IOException {
+        MessageDigest digest = MediaFileService.sha256();
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+            while (canal.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Verrou de la session, pris sans attendre ; null s'il est déjà tenu. Un verrou retiré de la
+     * map entre sa lecture et sa prise appartient à une session terminée : il est relâché et
+     * l'on recommence avec le verrou courant, si bien que deux appelants ne tiennent jamais
+     * chacun un verrou différent pour la même session.
+     */
+    private ReentrantLock verrouiller(String documentId) {
+        while (true) {
+            ReentrantLock verrou = verrous.computeIfAbsent(documentId, id -> new ReentrantLock());
+            if (!verrou.tryLock()) {
+                return null;
+            }
+            if (verrous.get(documentId) == verrou) {
+                return verrou;
+            }
+            verrou.unlock();
+        }
+    }
+
+    // Session terminée ou introuvable : l'entrée est retirée avant de relâcher le verrou
+    private void liberer(String documentId, ReentrantLock verrou, boolean terminee) {
+        if (terminee) {
+            verrous.remove(documentId, verrou);
+        }
+        verrou.unlock();
+    }
+
+    // Dans le répertoire d'upload pour que la finalisation soit un simple renommage
+    private Path fichierTemporaire(String documentId) {
+        return mediaFileService.getUploadDirectory().resolve(REPERTOIRE_SESSIONS).resolve(documentId + ".part");
+    }
+
+    private UploadSessionDTO convertToDto(UploadSession entity) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setId(entity.getId());
+        dto.setDocumentId(entity.getDocumentId());
+        dto.setCreatedAt(entity.getCreatedAt());
+        dto.setUpdatedAt(entity.getUpdatedAt());
+        dto.setName(entity.getName());
+        dto.setMime(entity.getMime());
+        dto.setAlternativeText(entity.getAlternativeText());
+        dto.setCaption(entity.getCaption());
+        dto.setTailleTotale(entity.getTailleTotale());
+        dto.setOffset(entity.getRecu());
+        dto.setExpiresAt(entity.getExpiresAt());
+        return dto;
+    }
+}
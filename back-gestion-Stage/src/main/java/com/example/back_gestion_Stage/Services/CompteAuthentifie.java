@@ -0,0 +1,12 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
+
+import java.time.Instant;
+
+/**
+ * Compte porté par un jeton de session valide ; principal de la requête dans le SecurityContext.
+ */
+public record CompteAuthentifie(String documentId, String email, CompteUtilisateur.TypeCompte typeCompte,
+                                String entityDocumentId, Instant expiresAt) {
+}
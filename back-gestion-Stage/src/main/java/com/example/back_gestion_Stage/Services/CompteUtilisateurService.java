@@ -1,26 +1,40 @@
 package com.example.back_gestion_Stage.Services;
 
 import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
+import com.example.back_gestion_Stage.DTOs.AuthenticationResponseDTO;
 import com.example.back_gestion_Stage.DTOs.CompteUtilisateurDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
 import com.example.back_gestion_Stage.Repositories.CompteUtilisateurRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Service
 public class CompteUtilisateurService extends BaseService<CompteUtilisateur, CompteUtilisateurDTO> {
 
     @Autowired
     private CompteUtilisateurRepository compteUtilisateurRepository;
 
+    @Autowired
+    private ExistenceFilterService existenceFilterService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PasswordVerificationService passwordVerificationService;
+
+    @Autowired
+    private TokenService tokenService;
+
     @Override
     protected CompteUtilisateurRepository getRepository() {
         return compteUtilisateurRepository;
@@ -80,19 +94,16 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
 
     // MÉTHODE AJOUTÉE POUR CORRIGER L'ERREUR
     public List<CompteUtilisateurDTO> findByEntityDocumentId(String entityDocumentId) {
-        return compteUtilisateurRepository.findByEntityDocumentId(entityDocumentId)
-                .stream()
-                .filter(compte -> compte.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(compteUtilisateurRepository.findByEntityDocumentIdAndStatut(entityDocumentId, StatutEntite.ACTIF));
     }
 
     // Les autres méthodes restent inchangées...
     public List<CompteUtilisateurDTO> findAllActifs() {
-        return compteUtilisateurRepository.findAll().stream()
-                .filter(compte -> compte.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(compteUtilisateurRepository.findByStatut(StatutEntite.ACTIF));
+    }
+
+    public CursorPage<CompteUtilisateurDTO> findActifsPage(String cursor, int limit) {
+        return findPageByStatut(compteUtilisateurRepository, StatutEntite.ACTIF, cursor, limit);
     }
 
     public Optional<CompteUtilisateurDTO> findByEmail(String email) {
@@ -102,17 +113,12 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
     }
 
     public List<CompteUtilisateurDTO> findByTypeCompte(CompteUtilisateur.TypeCompte typeCompte) {
-        return compteUtilisateurRepository.findByTypeCompte(typeCompte)
-                .stream()
-                .filter(compte -> compte.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(compteUtilisateurRepository.findByTypeCompteAndStatut(typeCompte, StatutEntite.ACTIF));
     }
 
     public boolean existsByEmail(String email) {
-        return compteUtilisateurRepository.findByEmail(email)
-                .map(compte -> compte.getStatut() == StatutEntite.ACTIF)
-                .orElse(false);
+        return existenceFilterService.existe(CompteUtilisateur.class, "email", email,
+                () -> compteUtilisateurRepository.existsByEmailAndStatut(email, StatutEntite.ACTIF));
     }
 
     public boolean verifyPassword(String rawPassword, String encodedPassword) {
@@ -133,18 +139,63 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
         return convertToDto(savedEntity);
     }
 
-    public Optional<CompteUtilisateurDTO> authenticate(String email, String password) {
+    /**
+     * Le compte est lu sur le thread appelant ; la vérification BCrypt s'exécute sur le pool
+     * de PasswordVerificationService, ce qui libère le thread de requête pendant le calcul.
+     * Un hash plus faible que le coût courant est ré-encodé sur ce même pool après succès.
+     *
+     * @throws AuthentificationSurchargeeException si trop de vérifications sont déjà en attente
+     */
+    public CompletableFuture<Optional<AuthenticationResponseDTO>> authenticateAsync(String email, String password) {
         Optional<CompteUtilisateur> compteOpt = compteUtilisateurRepository.findByEmail(email);
         
-        if (compteOpt.isPresent()) {
-            CompteUtilisateur compte = compteOpt.get();
-            if (compte.getStatut() == StatutEntite.ACTIF && 
-                verifyPassword(password, compte.getMotDePasse())) {
-                return Optional.of(convertToDto(compte));
-            }
+        if (compteOpt.isEmpty() || compteOpt.get().getStatut() != StatutEntite.ACTIF) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
         
-        return Optional.empty();
+        CompteUtilisateur compte = compteOpt.get();
+        return passwordVerificationService.verifier(compte.getDocumentId(), email, password, compte.getMotDePasse())
+                .thenApply(valide -> {
+                    if (!valide) {
+                        return Optional.empty();
+                    }
+                    reencoderSiNecessaire(compte, password);
+                    return Optional.of(reponseAuthentification(compte));
+                });
+    }
+
+    // Mise à niveau transparente du hash (coût BCrypt relevé, ancien format) ; un échec n'empêche pas la connexion
+    private void reencoderSiNecessaire(CompteUtilisateur compte, String password) {
+        String ancien = compte.getMotDePasse();
+        if (!passwordEncoder.upgradeEncoding(ancien)) {
+            return;
+        }
+        try {
+            String nouveau = passwordEncoder.encode(password);
+            if (compteUtilisateurRepository.remplacerMotDePasse(compte.getId(), ancien, nouveau) > 0) {
+                compte.setMotDePasse(nouveau);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ré-encodage du mot de passe du compte {} impossible", compte.getDocumentId(), e);
+        }
+    }
+
+    // Le compte tel qu'avant, complété du jeton de session signé
+    private AuthenticationResponseDTO reponseAuthentification(CompteUtilisateur compte) {
+        AuthenticationResponseDTO reponse = new AuthenticationResponseDTO();
+        reponse.setId(compte.getId());
+        reponse.setDocumentId(compte.getDocumentId());
+        reponse.setCreatedAt(compte.getCreatedAt());
+        reponse.setUpdatedAt(compte.getUpdatedAt());
+        reponse.setEmail(compte.getEmail());
+        reponse.setTypeCompte(compte.getTypeCompte());
+        reponse.setEntityDocumentId(compte.getEntityDocumentId());
+        reponse.setEntityType(compte.getEntityType());
+        reponse.setStatut(compte.getStatut());
+        Instant expiration = tokenService.expirationPourMaintenant();
+        reponse.setToken(tokenService.emettre(reponse, expiration));
+        reponse.setExpiresAt(expiration);
+        return reponse;
     }
 
     public CompteUtilisateurDTO updatePassword(String documentId, String newPassword) {
@@ -154,6 +205,7 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
             CompteUtilisateur compte = compteOpt.get();
             compte.setMotDePasse(passwordEncoder.encode(newPassword));
             CompteUtilisateur savedCompte = compteUtilisateurRepository.save(compte);
+            passwordVerificationService.invalider(documentId);
             return convertToDto(savedCompte);
         }
         
@@ -163,7 +215,10 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
     @Override
     public void deleteByDocumentId(String documentId) {
         compteUtilisateurRepository.findByDocumentId(documentId)
-                .ifPresent(compte -> compteUtilisateurRepository.deleteById(compte.getId()));
+                .ifPresent(compte -> {
+                    compteUtilisateurRepository.deleteById(compte.getId());
+                    passwordVerificationService.invalider(documentId);
+                });
     }
 
     public CompteUtilisateurDTO desactiver(String documentId) {
@@ -172,6 +227,7 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
             CompteUtilisateur compte = compteOpt.get();
             compte.setStatut(StatutEntite.INACTIF);
             CompteUtilisateur savedCompte = compteUtilisateurRepository.save(compte);
+            passwordVerificationService.invalider(documentId);
             return convertToDto(savedCompte);
         }
         return null;
@@ -189,10 +245,7 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
     }
 
     public List<CompteUtilisateurDTO> findByStatut(StatutEntite statut) {
-        return compteUtilisateurRepository.findAll().stream()
-                .filter(compte -> compte.getStatut() == statut)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(compteUtilisateurRepository.findByStatut(statut));
     }
 
     public CompteUtilisateurDTO createCompteForEntity(String email, String password, 
@@ -210,9 +263,8 @@ public class CompteUtilisateurService extends BaseService<CompteUtilisateur, Com
     }
 
     public Optional<CompteUtilisateurDTO> findByEntity(String entityDocumentId, CompteUtilisateur.TypeCompte entityType) {
-        return compteUtilisateurRepository.findByEntityDocumentIdAndEntityType(entityDocumentId, entityType)
+        return compteUtilisateurRepository.findByEntityDocumentIdAndEntityTypeAndStatut(entityDocumentId, entityType, StatutEntite.ACTIF)
                 .stream()
-                .filter(compte -> compte.getStatut() == StatutEntite.ACTIF)
                 .findFirst()
                 .map(this::convertToDto);
     }
@@ -0,0 +1,20 @@
+package com.example.back_gestion_Stage.Services;
+
+import java.util.List;
+
+/**
+ * Levée lorsqu'une résolution en lot ne retrouve pas tous les documentIds demandés.
+ */
+public class DocumentIdsIntrouvablesException extends RuntimeException {
+
+    private final List<String> documentIds;
+
+    public DocumentIdsIntrouvablesException(String typeEntite, List<String> documentIds) {
+        super(typeEntite + " introuvable(s) : " + String.join(", ", documentIds));
+        this.documentIds = List.copyOf(documentIds);
+    }
+
+    public List<String> getDocumentIds() {
+        return documentIds;
+    }
+}
@@ -1,20 +1,22 @@
 package com.example.back_gestion_Stage.Services;
 
+import com.example.back_gestion_Stage.Config.CacheConfig;
 import com.example.back_gestion_Stage.Entities.Encadreur;
 import com.example.back_gestion_Stage.Entities.Stagiaire;
 import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
 import com.example.back_gestion_Stage.DTOs.EncadreurDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
 import com.example.back_gestion_Stage.Repositories.EncadreurRepository;
 import com.example.back_gestion_Stage.Repositories.StagiaireRepository;
-import com.example.back_gestion_Stage.Repositories.SuperieurHierarchiqueRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -24,7 +26,10 @@ public class EncadreurService extends BaseService<Encadreur, EncadreurDTO> {
     private EncadreurRepository encadreurRepository;
 
     @Autowired
-    private SuperieurHierarchiqueRepository superieurHierarchiqueRepository;
+    private ExistenceFilterService existenceFilterService;
+
+    @Autowired
+    private SuperieurHierarchiqueService superieurHierarchiqueService;
 
     @Autowired
     private StagiaireRepository stagiaireRepository;
@@ -81,7 +86,7 @@ public class EncadreurService extends BaseService<Encadreur, EncadreurDTO> {
         entity.setStatut(dto.getStatut());
         
         if (dto.getSuperieurHierarchiqueDocumentId() != null) {
-            superieurHierarchiqueRepository.findByDocumentId(dto.getSuperieurHierarchiqueDocumentId())
+            superieurHierarchiqueService.findReferenceByDocumentId(dto.getSuperieurHierarchiqueDocumentId())
                 .ifPresent(entity::setSuperieurHierarchique);
         }
         
@@ -102,7 +107,7 @@ public class EncadreurService extends BaseService<Encadreur, EncadreurDTO> {
         if (dto.getStatut() != null) entity.setStatut(dto.getStatut());
         if (dto.getSuperieurHierarchiqueDocumentId() != null) {
             // Si un nouveau documentId de superviseur est fourni, on met à jour la relation
-            superieurHierarchiqueRepository.findByDocumentId(dto.getSuperieurHierarchiqueDocumentId())
+            superieurHierarchiqueService.findReferenceByDocumentId(dto.getSuperieurHierarchiqueDocumentId())
                 .ifPresent(entity::setSuperieurHierarchique);
         } else {
             // Si le superviseur est null dans le DTO, on supprime la relation
@@ -113,14 +118,37 @@ public class EncadreurService extends BaseService<Encadreur, EncadreurDTO> {
 
     // ... [le reste des méthodes reste inchangé] ...
 
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ENCADREURS, allEntries = true)
+    public EncadreurDTO save(EncadreurDTO dto) {
+        return super.save(dto);
+    }
+
+    /**
+     * Référence servant à renseigner les relations (stages, stagiaires) : seul l'id est en cache et
+     * l'instance, propre à l'appelant, ne porte que l'id et le documentId. Les jointures se font sur
+     * documentId, qu'un proxy getReferenceById irait lire en base au flush ; cette instance détachée
+     * le fournit directement. Ses autres champs ne sont pas renseignés.
+     */
+    public Optional<Encadreur> findReferenceByDocumentId(String documentId) {
+        return encadreurRepository.findIdByDocumentId(documentId).map(id -> {
+            Encadreur reference = new Encadreur();
+            reference.setId(id);
+            reference.setDocumentId(documentId);
+            return reference;
+        });
+    }
+
     // Méthodes spécifiques avec filtrage par statut
     public List<EncadreurDTO> findAllActifs() {
-        return encadreurRepository.findAll().stream()
-                .filter(encadreur -> encadreur.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(encadreurRepository.findByStatut(StatutEntite.ACTIF));
     }
 
+    public CursorPage<EncadreurDTO> findActifsPage(String cursor, int limit) {
+        return findPageByStatut(encadreurRepository, StatutEntite.ACTIF, cursor, limit);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.ENCADREURS, key = "'email:' + #email")
     public Optional<EncadreurDTO> findByEmail(String email) {
         return encadreurRepository.findByEmail(email)
                 .filter(encadreur -> encadreur.getStatut() == StatutEntite.ACTIF)
@@ -128,26 +156,21 @@ public class EncadreurService extends BaseService<Encadreur, EncadreurDTO> {
     }
 
     public List<EncadreurDTO> findBySuperieurHierarchique(String superieurDocumentId) {
-        return encadreurRepository.findBySuperieurHierarchiqueDocumentId(superieurDocumentId)
-                .stream()
-                .filter(encadreur -> encadreur.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(encadreurRepository.findBySuperieurHierarchiqueDocumentIdAndStatut(superieurDocumentId, StatutEntite.ACTIF));
     }
 
     public boolean existsByEmail(String email) {
-        return encadreurRepository.findByEmail(email)
-                .map(encadreur -> encadreur.getStatut() == StatutEntite.ACTIF)
-                .orElse(false);
+        return existenceFilterService.existe(Encadreur.class, "email", email,
+                () -> encadreurRepository.existsByEmailAndStatut(email, StatutEntite.ACTIF));
     }
 
     public boolean existsByCin(String cin) {
-        return encadreurRepository.findByCin(cin)
-                .map(encadreur -> encadreur.getStatut() == StatutEntite.ACTIF)
-                .orElse(false);
+        return existenceFilterService.existe(Encadreur.class, "cin", cin,
+                () -> encadreurRepository.existsByCinAndStatut(cin, StatutEntite.ACTIF));
     }
 
     // Méthodes de gestion du statut
+    @CacheEvict(cacheNames = CacheConfig.ENCADREURS, allEntries = true)
     public EncadreurDTO desactiver(String documentId) {
         Optional<Encadreur> encadreurOpt = encadreurRepository.findByDocumentId(documentId);
         if (encadreurOpt.isPresent()) {
@@ -180,6 +203,7 @@ public class EncadreurService extends BaseService<Encadreur, EncadreurDTO> {
         return null;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.ENCADREURS, allEntries = true)
     public EncadreurDTO activer(String documentId) {
         Optional<Encadreur> encadreurOpt = encadreurRepository.findByDocumentId(documentId);
         if (encadreurOpt.isPresent()) {
@@ -200,29 +224,25 @@ public class EncadreurService extends BaseService<Encadreur, EncadreurDTO> {
     }
 
     public List<EncadreurDTO> findByStatut(StatutEntite statut) {
-        return encadreurRepository.findAll().stream()
-                .filter(encadreur -> encadreur.getStatut() == statut)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(encadreurRepository.findByStatut(statut));
     }
 
     // Autres méthodes inchangées
     public List<EncadreurDTO> findByDepartement(String departement) {
-        return encadreurRepository.findByDepartement(departement)
-                .stream()
-                .filter(encadreur -> encadreur.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(encadreurRepository.findByDepartementAndStatut(departement, StatutEntite.ACTIF));
     }
 
     public List<EncadreurDTO> findAllWithSuperieur() {
-        return encadreurRepository.findAllWithSuperieur()
-                .stream()
-                .filter(encadreur -> encadreur.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(encadreurRepository.findAllWithSuperieurByStatut(StatutEntite.ACTIF));
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.ENCADREURS, allEntries = true)
+    @Override
+    public void deleteById(Long id) {
+        super.deleteById(id);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.ENCADREURS, allEntries = true)
     @Override
     public void deleteByDocumentId(String documentId) {
         encadreurRepository.findByDocumentId(documentId)
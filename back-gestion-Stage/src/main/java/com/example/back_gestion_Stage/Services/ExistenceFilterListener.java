@@ -0,0 +1,27 @@
+package com.example.back_gestion_Stage.Services;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Listener JPA des entités portant un email ou un CIN unique : la valeur est ajoutée aux
+ * filtres d'existence avant l'écriture, donc avant que le commit ne la rende visible.
+ * Instancié par Hibernate via le conteneur Spring ; le service est résolu à l'usage
+ * car le listener est créé avec l'EntityManagerFactory.
+ */
+public class ExistenceFilterListener {
+
+    @Autowired
+    private ObjectProvider<ExistenceFilterService> existenceFilterService;
+
+    @PrePersist
+    @PreUpdate
+    public void avantEcriture(Object entite) {
+        ExistenceFilterService service = existenceFilterService != null ? existenceFilterService.getIfAvailable() : null;
+        if (service != null) {
+            service.enregistrer(entite);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Entities.Admin;
+import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
+import com.example.back_gestion_Stage.Entities.Encadreur;
+import com.example.back_gestion_Stage.Entities.Stagiaire;
+import com.example.back_gestion_Stage.Entities.SuperieurHierarchique;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Pré-contrôle des vérifications d'unicité (email, CIN) par filtres de Bloom en mémoire,
+ * un par type d'entité et par champ. Un filtre ne donne jamais de faux négatif : "absent"
+ * répond false sans requête, "peut-être présent" retombe sur la requête indexée.
+ * Chaque valeur écrite en base est ajoutée avant le commit (ExistenceFilterListener) ; une
+ * suppression ou un changement d'email laisse des bits en trop, d'où une reconstruction
+ * complète au démarrage puis périodiquement. Tant qu'un filtre n'est pas construit, toutes
+ * les vérifications passent par la base.
+ */
+@Slf4j
+@Service
+public class ExistenceFilterService {
+
+    // Les ajouts récents sont rejoués dans un filtre reconstruit : couvre les transactions
+    // encore ouvertes pendant la relecture de la table
+    private static final Duration FENETRE_AJOUTS_RECENTS = Duration.ofMinutes(10);
+
+    private record Champ<E>(Class<E> entite, String nom, Function<E, String> lecture) {
+
+        String cle() {
+            return cle(entite, nom);
+        }
+
+        static String cle(Class<?> entite, String nom) {
+            return entite.getSimpleName() + "." + nom;
+        }
+    }
+
+    private record Ajout(long instant, String valeur) {
+    }
+
+    // État d'un champ : filtre courant (null tant qu'il n'est pas construit), ajouts récents et métriques
+    private static final class Etat {
+        final Champ<?> champ;
+        volatile FiltreBloom filtre;
+        volatile FiltreBloom enConstruction;
+        final ConcurrentLinkedQueue<Ajout> ajoutsRecents = new ConcurrentLinkedQueue<>();
+        final Counter negatifs;
+        final Counter presents;
+        final Counter fauxPositifs;
+
+        Etat(Champ<?> champ, MeterRegistry meterRegistry) {
+            this.champ = champ;
+            this.negatifs = compteur(meterRegistry, champ, "negative");
+            this.presents = compteur(meterRegistry, champ, "present");
+            this.fauxPositifs = compteur(meterRegistry, champ, "false-positive");
+            Gauge.builder("existence.filter.fpp", this, e -> e.filtre != null ? e.filtre.probabiliteFauxPositif() : 1.0)
+                    .description("Taux de faux positifs estimé d'après le remplissage du filtre")
+                    .tag("champ", champ.cle())
+                    .register(meterRegistry);
+        }
+
+        private static Counter compteur(MeterRegistry meterRegistry, Champ<?> champ, String resultat) {
+            return Counter.builder("existence.filter.checks")
+                    .description("Vérifications d'unicité par résultat du filtre de Bloom")
+                    .tag("champ", champ.cle())
+                    .tag("result", resultat)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static final List<Champ<?>> CHAMPS = List.of(
+            new Champ<>(Stagiaire.class, "email", Stagiaire::getEmail),
+            new Champ<>(Stagiaire.class, "cin", Stagiaire::getCin),
+            new Champ<>(Encadreur.class, "email", Encadreur::getEmail),
+            new Champ<>(Encadreur.class, "cin", Encadreur::getCin),
+            new Champ<>(SuperieurHierarchique.class, "email", SuperieurHierarchique::getEmail),
+            new Champ<>(SuperieurHierarchique.class, "cin", SuperieurHierarchique::getCin),
+            new Champ<>(Admin.class, "email", Admin::getEmail),
+            new Champ<>(Admin.class, "cin", Admin::getCin),
+            new Champ<>(CompteUtilisateur.class, "email", CompteUtilisateur::getEmail)
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<String, Etat> etats = new LinkedHashMap<>();
+    private final TransactionTemplate lecture;
+    private final boolean active;
+    private final double probabiliteCible;
+    private final int capaciteMin;
+
+    public ExistenceFilterService(
+            PlatformTransactionManager transactionManager,
+            @Value("${app.existence-filter.enabled:true}") boolean active,
+            @Value("${app.existence-filter.fpp:0.01}") double probabiliteCible,
+            @Value("${app.existence-filter.min-capacity:10000}") int capaciteMin,
+            MeterRegistry meterRegistry) {
+        if (probabiliteCible <= 0 || probabiliteCible >= 1) {
+            throw new IllegalArgumentException("app.existence-filter.fpp doit être entre 0 et 1");
+        }
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+        this.active = active;
+        this.probabiliteCible = probabiliteCible;
+        this.capaciteMin = capaciteMin;
+        for (Champ<?> champ : CHAMPS) {
+            etats.put(champ.cle(), new Etat(champ, meterRegistry));
+        }
+    }
+
+    /**
+     * Résultat de la requête d'existence, sauf si le filtre garantit que la valeur est
+     * absente ; dans ce cas false est renvoyé sans interroger la base.
+     */
+    public boolean existe(Class<?> entite, String champ, String valeur, BooleanSupplier requete) {
+        Etat etat = etats.get(Champ.cle(entite, champ));
+        FiltreBloom filtre = etat != null && active ? etat.filtre : null;
+        if (filtre == null || valeur == null) {
+            return requete.getAsBoolean();
+        }
+        if (!filtre.peutContenir(valeur)) {
+            etat.negatifs.increment();
+            return false;
+        }
+        boolean existe = requete.getAsBoolean();
+        (existe ? etat.presents : etat.fauxPositifs).increment();
+        return existe;
+    }
+
+    // Appelé avant l'écriture d'une entité suivie : ses valeurs deviennent "peut-être présentes"
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void enregistrer(Object entite) {
+        long maintenant = System.nanoTime();
+        for (Etat etat : etats.values()) {
+            Champ champ = etat.champ;
+            if (!champ.entite().isInstance(entite)) {
+                continue;
+            }
+            String valeur = (String) champ.lecture().apply(entite);
+            if (valeur == null) {
+                continue;
+            }
+            etat.ajoutsRecents.add(new Ajout(maintenant, valeur));
+            FiltreBloom filtre = etat.filtre;
+            if (filtre != null) {
+                filtre.ajouter(valeur);
+            }
+            FiltreBloom enConstruction = etat.enConstruction;
+            if (enConstruction != null) {
+                enConstruction.ajouter(valeur);
+            }
+            purgerAjoutsRecents(etat, maintenant);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construireAuDemarrage() {
+        reconstruire();
+    }
+
+    // Élimine les bits laissés par les suppressions et redimensionne selon le volume actuel
+    @Scheduled(fixedDelayString = "${app.existence-filter.rebuild-ms:21600000}",
+               initialDelayString = "${app.existence-filter.rebuild-ms:21600000}")
+    public void reconstruire() {
+        if (!active) {
+            return;
+        }
+        for (Etat etat : etats.values()) {
+            try {
+                reconstruire(etat);
+            } catch (RuntimeException e) {
+                log.warn("Reconstruction du filtre {} impossible, vérifications par la base", etat.champ.cle(), e);
+            }
+        }
+    }
+
+    private void reconstruire(Etat etat) {
+        Champ<?> champ = etat.champ;
+        long nombre = lecture.execute(status -> entityManager.createQuery(
+                "SELECT COUNT(e) FROM " + champ.entite().getSimpleName() + " e", Long.class).getSingleResult());
+        FiltreBloom nouveau = FiltreBloom.pour(Math.max(capaciteMin, nombre * 2), probabiliteCible);
+        etat.enConstruction = nouveau;
+        try {
+            lecture.executeWithoutResult(status -> {
+                try (Stream<String> valeurs = entityManager.createQuery(
+                        "SELECT e." + champ.nom() + " FROM " + champ.entite().getSimpleName() + " e WHERE e."
+                                + champ.nom() + " IS NOT NULL", String.class).getResultStream()) {
+                    valeurs.forEach(nouveau::ajouter);
+                }
+            });
+            long maintenant = System.nanoTime();
+            purgerAjoutsRecents(etat, maintenant);
+            etat.ajoutsRecents.forEach(ajout -> nouveau.ajouter(ajout.valeur()));
+            etat.filtre = nouveau;
+        } finally {
+            etat.enConstruction = null;
+        }
+        log.info("Filtre d'existence {} reconstruit : {} valeurs, {} bits, fpp estimée {}",
+                champ.cle(), nombre, nouveau.taille(), String.format("%.4f", nouveau.probabiliteFauxPositif()));
+    }
+
+    private static void purgerAjoutsRecents(Etat etat, long maintenant) {
+        long limite = maintenant - FENETRE_AJOUTS_RECENTS.toNanos();
+        Ajout plusAncien;
+        while ((plusAncien = etat.ajoutsRecents.peek()) != null && plusAncien.instant() - limite < 0) {
+            etat.ajoutsRecents.remove(plusAncien);
+        }
+    }
+
+    /**
+     * Filtre de Bloom sans verrou : bits dans un AtomicLongArray, k positions obtenues par
+     * double hachage d'un hash 64 bits de la valeur (FNV-1a puis mélange de MurmurHash3).
+     */
+    static final class FiltreBloom {
+
+        private final AtomicLongArray mots;
+        private final long taille;
+        private final int nombreHash;
+        private final AtomicLong bitsPositionnes = new AtomicLong();
+
+        private FiltreBloom(long taille, int nombreHash) {
+            this.mots = new AtomicLongArray((int) ((taille + 63) / 64));
+            this.taille = taille;
+            this.nombreHash = nombreHash;
+        }
+
+        // Dimensionnement classique : m = -n ln p / (ln 2)², k = m/n ln 2
+        static FiltreBloom pour(long elementsAttendus, double probabilite) {
+            long taille = (long) Math.ceil(-elementsAttendus * Math.log(probabilite) / (Math.log(2) * Math.log(2)));
+            int nombreHash = Math.max(1, (int) Math.round((double) taille / elementsAttendus * Math.log(2)));
+            return new FiltreBloom(Math.max(64, taille), nombreHash);
+        }
+
+        void ajouter(String valeur) {
+            long h1 = hash(valeur);
+            long h2 = melanger(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < nombreHash; i++) {
+                long bit = Math.floorMod(h1 + i * h2, taille);
+                int index = (int) (bit >>> 6);
+                long masque = 1L << bit;
+                long avant = mots.getAndAccumulate(index, masque, (a, b) -> a | b);
+                if ((avant & masque) == 0) {
+                    bitsPositionnes.incrementAndGet();
+                }
+            }
+        }
+
+        boolean peutContenir(String valeur) {
+            long h1 = hash(valeur);
+            long h2 = melanger(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < nombreHash; i++) {
+                long bit = Math.floorMod(h1 + i * h2, taille);
+                if ((mots.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // (bits positionnés / taille)^k : probabilité qu'une valeur absente passe le filtre
+        double probabiliteFauxPositif() {
+            return Math.pow((double) bitsPositionnes.get() / taille, nombreHash);
+        }
+
+        long taille() {
+            return taille;
+        }
+
+        private static long hash(String valeur) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : valeur.getBytes(StandardCharsets.UTF_8)) {
+                h = (h ^ (b & 0xff)) * 0x100000001b3L;
+            }
+            return melanger(h);
+        }
+
+        private static long melanger(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
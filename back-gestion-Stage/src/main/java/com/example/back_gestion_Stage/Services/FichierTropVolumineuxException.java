@@ -0,0 +1,13 @@
+package com.example.back_gestion_Stage.Services;
+
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Levée quand un upload dépasse app.max-file-size ; le fichier partiel est supprimé.
+ */
+public class FichierTropVolumineuxException extends RuntimeException {
+
+    public FichierTropVolumineuxException(DataSize limite) {
+        super("Fichier trop volumineux (limite : " + limite.toMegabytes() + " MB)");
+    }
+}
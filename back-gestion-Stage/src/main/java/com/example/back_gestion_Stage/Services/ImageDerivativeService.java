@@ -0,0 +1,250 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Entities.MediaFile;
+import com.example.back_gestion_Stage.Repositories.MediaFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Génère les variantes thumb_ et medium_ des images uploadées.
+ * L'image est décodée une seule fois, après lecture de ses dimensions dans l'en-tête :
+ * au-delà de max-pixels elle n'est pas décodée et l'original sert de variante.
+ * Le travail se fait sur un pool borné dont la file est limitée : quand elle est pleine,
+ * la tâche est abandonnée et le média reste derivesPrets=false jusqu'à la reprise planifiée.
+ * Le résultat est écrit dans sa propre transaction, jamais dans celle de l'upload.
+ */
+@Slf4j
+@Service
+public class ImageDerivativeService {
+
+    public static final String PREFIXE_THUMBNAIL = "thumb_";
+    public static final String PREFIXE_MEDIUM = "medium_";
+
+    @Autowired
+    private MediaFileRepository mediaFileRepository;
+
+    @Autowired
+    private StorageProviderRegistry storageProviders;
+
+    // Les variantes sont générées ici avant d'être remises au StorageProvider du fichier
+    @Value("${app.upload.dir:uploads/}")
+    private String uploadDir;
+
+    @Value("${app.media.derivatives.thumbnail-size:150}")
+    private int tailleThumbnail;
+
+    @Value("${app.media.derivatives.medium-size:600}")
+    private int tailleMedium;
+
+    // 40 Mpx : environ 160 Mo une fois décodée en ARGB
+    @Value("${app.media.derivatives.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${app.media.derivatives.sweep-batch-size:100}")
+    private int tailleLotReprise;
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter tachesRejetees;
+
+    public ImageDerivativeService(
+            @Value("${app.media.derivatives.threads:2}") int threads,
+            @Value("${app.media.derivatives.queue-capacity:100}") int capaciteFile,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        // Appelé après le commit de l'upload : une transaction neuve, pas celle qui vient de se terminer
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tachesRejetees = Counter.builder("media.derivatives.rejected")
+                .description("Générations de dérivés abandonnées, file pleine")
+                .register(meterRegistry);
+        AtomicInteger compteur = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capaciteFile),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-derives-" + compteur.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("media.derivatives.queue", executor, e -> e.getQueue().size())
+                .description("Images en attente de génération des dérivés")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaFileUploaded(MediaFileUploadedEvent event) {
+        soumettre(event.mediaFileId());
+    }
+
+    // Images restées sans dérivés (file pleine, arrêt de l'instance) : remises en file tant qu'il y a de la place
+    @Scheduled(fixedDelayString = "${app.media.derivatives.sweep-ms:300000}",
+               initialDelayString = "${app.media.derivatives.sweep-ms:300000}")
+    public void reprendre() {
+        LocalDateTime avant = LocalDateTime.now().minusMinutes(1);
+        for (Long id : mediaFileRepository.findIdsDerivesEnAttente(avant, PageRequest.of(0, tailleLotReprise))) {
+            if (!soumettre(id)) {
+                return;
+            }
+        }
+    }
+
+    private boolean soumettre(Long mediaFileId) {
+        try {
+            executor.execute(() -> genererDerives(mediaFileId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            tachesRejetees.increment();
+            log.debug("File des dérivés pleine, média {} laissé à la reprise planifiée", mediaFileId);
+            return false;
+        }
+    }
+
+    public void genererDerives(Long mediaFileId) {
+        MediaFile mediaFile = mediaFileRepository.findById(mediaFileId).orElse(null);
+        if (mediaFile == null || Boolean.TRUE.equals(mediaFile.getDerivesPrets())) {
+            return;
+        }
+
+        Integer largeur = null;
+        Integer hauteur = null;
+        String thumbnailUrl = mediaFile.getUrl();
+        String mediumUrl = mediaFile.getUrl();
+
+        try {
+            StorageProvider provider = storageProviders.get(mediaFile.getProvider());
+            BufferedImage image = null;
+            try (InputStream original = provider.ouvrir(mediaFile.getUrl());
+                 ImageInputStream entree = ImageIO.createImageInputStream(original)) {
+                Iterator<ImageReader> readers = entree != null ? ImageIO.getImageReaders(entree) : null;
+                if (readers != null && readers.hasNext()) {
+                    ImageReader reader = readers.next();
+                    try {
+                        reader.setInput(entree, true, true);
+                        largeur = reader.getWidth(0);
+                        hauteur = reader.getHeight(0);
+                        if ((long) largeur * hauteur <= maxPixels) {
+                            image = reader.read(0);
+                        } else {
+                            log.info("Média {} de {}x{} au-delà de {} pixels : dérivés non générés",
+                                    mediaFileId, largeur, hauteur, maxPixels);
+                        }
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            }
+            String format = formatEcriture(mediaFile.getExt());
+            if (image != null && format != null) {
+                thumbnailUrl = ecrireVariante(provider, image, mediaFile, PREFIXE_THUMBNAIL, tailleThumbnail, format);
+                mediumUrl = ecrireVariante(provider, image, mediaFile, PREFIXE_MEDIUM, tailleMedium, format);
+            }
+        } catch (IOException | RuntimeException e) {
+            // On garde l'original comme variante : l'affichage reste correct, juste plus lourd
+            log.warn("Génération des dérivés impossible pour le média {}", mediaFileId, e);
+        }
+
+        Integer largeurFinale = largeur;
+        Integer hauteurFinale = hauteur;
+        String thumbnailFinal = thumbnailUrl;
+        String mediumFinal = mediumUrl;
+        // Mise à jour ciblée : si l'original a été déplacé entre-temps, rien n'est écrit et la reprise recommence
+        transactionTemplate.executeWithoutResult(status ->
+                mediaFileRepository.enregistrerDerives(mediaFileId, mediaFile.getUrl(),
+                        largeurFinale, hauteurFinale, thumbnailFinal, mediumFinal));
+    }
+
+    // La variante est rangée à côté de l'original : même URL, nom préfixé
+    private String ecrireVariante(StorageProvider provider, BufferedImage image, MediaFile mediaFile, String prefixe,
+                                  int tailleMax, String format) throws IOException {
+        String url = mediaFile.getUrl();
+        BufferedImage variante = redimensionner(image, tailleMax, "jpg".equals(format));
+        Path repertoire = Files.createDirectories(Paths.get(uploadDir));
+        Path temporaire = Files.createTempFile(repertoire, prefixe, "." + format + ".part");
+        try {
+            if (!ImageIO.write(variante, format, temporaire.toFile())) {
+                return url;
+            }
+            int separateur = url.lastIndexOf('/');
+            String urlVariante = url.substring(0, separateur + 1) + prefixe + url.substring(separateur + 1);
+            provider.ecrire(temporaire, urlVariante, mediaFile.getMime());
+            return urlVariante;
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    // Réduction par moitiés successives puis ajustement final : meilleure qualité qu'un seul passage
+    private BufferedImage redimensionner(BufferedImage source, int tailleMax, boolean sansTransparence) {
+        int type = sansTransparence ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        double ratio = Math.min(1.0, (double) tailleMax / Math.max(source.getWidth(), source.getHeight()));
+        int largeurCible = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int hauteurCible = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage courante = source;
+        int largeur = source.getWidth();
+        int hauteur = source.getHeight();
+        do {
+            largeur = Math.max(largeurCible, largeur / 2);
+            hauteur = Math.max(hauteurCible, hauteur / 2);
+            BufferedImage etape = new BufferedImage(largeur, hauteur, type);
+            Graphics2D graphics = etape.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(courante, 0, 0, largeur, hauteur, null);
+            graphics.dispose();
+            courante = etape;
+        } while (largeur != largeurCible || hauteur != hauteurCible);
+        return courante;
+    }
+
+    private String formatEcriture(String ext) {
+        if (ext == null) {
+            return null;
+        }
+        return switch (ext.toLowerCase(Locale.ROOT)) {
+            case "jpg", "jpeg" -> "jpg";
+            case "png" -> "png";
+            case "gif" -> "gif";
+            case "bmp" -> "bmp";
+            default -> null;
+        };
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Entities.BaseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position opaque dans un parcours trié par (createdAt DESC, id DESC).
+ * Encodée en base64 URL-safe pour pouvoir circuler en paramètre de requête.
+ */
+record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATEUR = "|";
+
+    static KeysetCursor of(BaseEntity entity) {
+        return new KeysetCursor(entity.getCreatedAt(), entity.getId());
+    }
+
+    String encode() {
+        String brut = createdAt + SEPARATEUR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetCursor decode(String cursor) {
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separateur = brut.lastIndexOf(SEPARATEUR);
+            if (separateur <= 0) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            return new KeysetCursor(
+                LocalDateTime.parse(brut.substring(0, separateur)),
+                Long.valueOf(brut.substring(separateur + 1))
+            );
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur invalide", e);
+        }
+    }
+}
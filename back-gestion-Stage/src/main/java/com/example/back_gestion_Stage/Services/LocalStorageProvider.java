@@ -0,0 +1,97 @@
+package com.example.back_gestion_Stage.Services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Fichiers dans app.upload.dir, servis sous /uploads/... par UploadController.
+ * Tous les fichiers sont à plat dans le répertoire (disposition historique).
+ */
+@Component
+public class LocalStorageProvider implements StorageProvider {
+
+    public static final String NOM = "local";
+    public static final String PREFIXE_URL = "/uploads/";
+
+    private final Path racine;
+
+    public LocalStorageProvider(@Value("${app.upload.dir:uploads/}") String repertoire) {
+        this.racine = Paths.get(repertoire).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String getNom() {
+        return NOM;
+    }
+
+    @Override
+    public String urlPour(String nomFichier) {
+        return PREFIXE_URL + nomFichier;
+    }
+
+    @Override
+    public boolean gere(String url) {
+        return url != null && url.startsWith(PREFIXE_URL);
+    }
+
+    @Override
+    public void ecrire(Path source, String url, String contentType) throws IOException {
+        Path cible = chemin(url).orElseThrow(() -> new IOException("URL de média invalide : " + url));
+        Files.createDirectories(cible.getParent());
+        try {
+            // Même système de fichiers que le répertoire d'upload : simple renommage, aucune recopie
+            Files.move(source, cible, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.copy(source, cible, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(source);
+        }
+    }
+
+    @Override
+    public InputStream ouvrir(String url) throws IOException {
+        Path fichier = chemin(url).orElseThrow(() -> new IOException("URL de média invalide : " + url));
+        return Files.newInputStream(fichier);
+    }
+
+    @Override
+    public Optional<Resource> charger(String url) {
+        return chemin(url)
+                .filter(fichier -> Files.isRegularFile(fichier) && Files.isReadable(fichier))
+                .map(FileSystemResource::new);
+    }
+
+    @Override
+    public void supprimer(String url) throws IOException {
+        Optional<Path> fichier = chemin(url);
+        if (fichier.isPresent()) {
+            Files.deleteIfExists(fichier.get());
+        }
+    }
+
+    public Path getRacine() {
+        return racine;
+    }
+
+    // Fichier physique derrière une URL /uploads/..., sans sortir du répertoire d'upload
+    protected Optional<Path> chemin(String url) {
+        if (!gere(url)) {
+            return Optional.empty();
+        }
+        Path chemin = racine.resolve(url.substring(PREFIXE_URL.length())).normalize();
+        if (!chemin.startsWith(racine) || chemin.equals(racine)) {
+            return Optional.empty();
+        }
+        return Optional.of(chemin);
+    }
+}
@@ -1,18 +1,40 @@
 package com.example.back_gestion_Stage.Services;
 
+import com.example.back_gestion_Stage.Config.CacheConfig;
+import com.example.back_gestion_Stage.Entities.MediaBlob;
 import com.example.back_gestion_Stage.Entities.MediaFile;
 import com.example.back_gestion_Stage.DTOs.MediaFileDTO;
+import com.example.back_gestion_Stage.Repositories.MediaBlobRepository;
 import com.example.back_gestion_Stage.Repositories.MediaFileRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -22,7 +44,32 @@ public class MediaFileService extends BaseService<MediaFile, MediaFileDTO> {
     @Autowired
     private MediaFileRepository mediaFileRepository;
 
-    private final String UPLOAD_DIR = "uploads/";
+    @Autowired
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StorageProviderRegistry storageProviders;
+
+    @Autowired
+    private ShardedLocalStorageProvider shardedStorageProvider;
+
+    @Autowired
+    private PendingDeletionService pendingDeletionService;
+
+    // Répertoire de travail des uploads en cours (fichiers .part), avant remise au StorageProvider
+    @Value("${app.upload.dir:uploads/}")
+    private String uploadDir;
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    @Value("${app.max-file-size:50MB}")
+    private DataSize maxUploadSize;
 
     @Override
     protected MediaFileRepository getRepository() {
@@ -48,6 +95,8 @@ public class MediaFileService extends BaseService<MediaFile, MediaFileDTO> {
         dto.setProvider(entity.getProvider());
         dto.setThumbnailUrl(entity.getThumbnailUrl());
         dto.setMediumUrl(entity.getMediumUrl());
+        dto.setDerivesPrets(entity.getDerivesPrets());
+        dto.setSha256(entity.getSha256());
         return dto;
     }
 
@@ -88,11 +137,6 @@ public class MediaFileService extends BaseService<MediaFile, MediaFileDTO> {
         if (dto.getMediumUrl() != null) entity.setMediumUrl(dto.getMediumUrl());
         // Ne pas mettre à jour : id, documentId, createdAt, updatedAt
     }
-    @Override
-    public Optional<MediaFileDTO> findByDocumentId(String documentId) {
-        return mediaFileRepository.findByDocumentId(documentId)
-                .map(this::convertToDto);
-    }
 
     public Optional<MediaFileDTO> findByName(String name) {
         return mediaFileRepository.findByName(name)
@@ -151,63 +195,248 @@ public class MediaFileService extends BaseService<MediaFile, MediaFileDTO> {
         return mediaFileRepository.countByMime(mime);
     }
 
+    /**
+     * Les fichiers physiques ne sont pas supprimés ici : s'ils ne sont plus référencés,
+     * ils sont planifiés dans la même transaction et supprimés après commit par PendingDeletionService
+     */
     @Override
     public void deleteByDocumentId(String documentId) {
-        mediaFileRepository.findByDocumentId(documentId)
-                .ifPresent(mediaFile -> {
-                    // Supprimer le fichier physique du système de fichiers
-                    deletePhysicalFile(mediaFile.getUrl());
-                    if (mediaFile.getThumbnailUrl() != null) {
-                        deletePhysicalFile(mediaFile.getThumbnailUrl());
-                    }
-                    if (mediaFile.getMediumUrl() != null) {
-                        deletePhysicalFile(mediaFile.getMediumUrl());
-                    }
-                    // Supprimer l'entrée de la base de données
+        transactionTemplate.executeWithoutResult(status ->
+                mediaFileRepository.findByDocumentId(documentId).ifPresent(mediaFile -> {
                     mediaFileRepository.deleteById(mediaFile.getId());
-                });
+                    if (libererContenu(mediaFile)) {
+                        Set<String> urls = new LinkedHashSet<>();
+                        urls.add(mediaFile.getUrl());
+                        if (mediaFile.getThumbnailUrl() != null) urls.add(mediaFile.getThumbnailUrl());
+                        if (mediaFile.getMediumUrl() != null) urls.add(mediaFile.getMediumUrl());
+                        pendingDeletionService.planifier(mediaFile.getProvider(), mediaFile.getSha256(), urls);
+                    }
+                }));
+    }
+
+    // Décrémente le blob du fichier ; true si le contenu physique n'est plus référencé
+    private boolean libererContenu(MediaFile mediaFile) {
+        if (mediaFile.getSha256() == null) {
+            return true;
+        }
+        Optional<MediaBlob> blobOpt = mediaBlobRepository.findForUpdateBySha256(mediaFile.getSha256());
+        // Fichier antérieur au stockage par empreinte : il possède son propre fichier
+        if (blobOpt.isEmpty() || !blobOpt.get().getUrl().equals(mediaFile.getUrl())) {
+            return true;
+        }
+        MediaBlob blob = blobOpt.get();
+        blob.setReferenceCount(blob.getReferenceCount() - 1);
+        if (blob.getReferenceCount() > 0) {
+            mediaBlobRepository.save(blob);
+            return false;
+        }
+        mediaBlobRepository.delete(blob);
+        return true;
     }
 
     /**
      * Méthode pour uploader un fichier
      */
     public MediaFileDTO uploadFile(MultipartFile file, String alternativeText, String caption) throws IOException {
+        try (InputStream contenu = file.getInputStream()) {
+            return enregistrerFichier(contenu, file.getOriginalFilename(), file.getContentType(), alternativeText, caption);
+        }
+    }
+
+    /**
+     * Upload en flux continu (corps de requête brut) : pas de spool multipart,
+     * le contenu est écrit directement dans le répertoire d'upload.
+     */
+    public MediaFileDTO uploadStream(InputStream contenu, String originalFileName, String contentType,
+                                     String alternativeText, String caption) throws IOException {
+        return enregistrerFichier(contenu, originalFileName, contentType, alternativeText, caption);
+    }
+
+    // Écrit le flux une seule fois en calculant taille et SHA-256 au passage
+    private MediaFileDTO enregistrerFichier(InputStream contenu, String originalFileName, String contentType,
+                                            String alternativeText, String caption) throws IOException {
         // Créer le répertoire s'il n'existe pas
-        Path uploadPath = Paths.get(UPLOAD_DIR);
+        Path uploadPath = getUploadDirectory();
         if (!Files.exists(uploadPath)) {
             Files.createDirectories(uploadPath);
         }
 
-        // Générer un nom de fichier unique
-        String originalFileName = file.getOriginalFilename();
+        // Nom temporaire unique pendant l'écriture ; le nom définitif est l'empreinte du contenu
         String fileExtension = getFileExtension(originalFileName);
         String uniqueFileName = UUID.randomUUID().toString() + "." + fileExtension;
+        String nom = originalFileName != null ? originalFileName : uniqueFileName;
+        Path partiel = uploadPath.resolve(uniqueFileName + ".part");
+
+        MessageDigest digest = sha256();
+        long taille = 0;
+        try (InputStream entree = new DigestInputStream(contenu, digest);
+             OutputStream sortie = Files.newOutputStream(partiel, StandardOpenOption.CREATE_NEW)) {
+            byte[] tampon = new byte[TAILLE_TAMPON];
+            int lus;
+            while ((lus = entree.read(tampon)) != -1) {
+                taille += lus;
+                if (taille > maxUploadSize.toBytes()) {
+                    throw new FichierTropVolumineuxException(maxUploadSize);
+                }
+                sortie.write(tampon, 0, lus);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partiel);
+            throw e;
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        return enregistrerContenu(partiel, sha256, taille, nom, contentType, alternativeText, caption);
+    }
 
-        // Sauvegarder le fichier
-        Path filePath = uploadPath.resolve(uniqueFileName);
-        Files.copy(file.getInputStream(), filePath);
+    /**
+     * Rattache un fichier déjà écrit sur disque (dans le répertoire d'upload) à son blob,
+     * en le remettant au StorageProvider par défaut s'il est nouveau, puis crée le MediaFile.
+     * Le fichier partiel est toujours consommé.
+     */
+    public MediaFileDTO enregistrerContenu(Path partiel, String sha256, long taille, String nom, String contentType,
+                                           String alternativeText, String caption) throws IOException {
+        String fileExtension = getFileExtension(nom);
+        try {
+            return referencerContenu(sha256, partiel, fileExtension, taille,
+                    mediaFile(nom, contentType, alternativeText, caption));
+        } catch (DataIntegrityViolationException e) {
+            // Même contenu uploadé en parallèle : le blob existe maintenant, on s'y rattache
+            return referencerContenu(sha256, partiel, fileExtension, taille,
+                    mediaFile(nom, contentType, alternativeText, caption));
+        } finally {
+            Files.deleteIfExists(partiel);
+        }
+    }
 
-        // Créer l'entité MediaFile
+    public DataSize getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    public Path getUploadDirectory() {
+        return Paths.get(uploadDir);
+    }
+
+    /**
+     * Crée un MediaFile à partir d'un contenu déjà stocké, sans retransférer les octets.
+     * Vide si aucun blob ne porte cette empreinte : le client doit alors uploader le fichier.
+     */
+    public Optional<MediaFileDTO> createFromSha256(MediaFileDTO dto) {
+        if (dto.getSha256() == null || dto.getName() == null) {
+            throw new IllegalArgumentException("sha256 et name sont obligatoires");
+        }
+        return Optional.ofNullable(transactionTemplate.execute(status ->
+                mediaBlobRepository.findForUpdateBySha256(dto.getSha256().toLowerCase())
+                        .map(blob -> {
+                            MediaFile mediaFile = mediaFile(dto.getName(), dto.getMime(), dto.getAlternativeText(), dto.getCaption());
+                            return rattacherAuBlob(blob, mediaFile);
+                        })
+                        .orElse(null)));
+    }
+
+    /**
+     * Incrémente le blob existant ou place le fichier partiel à son adresse de contenu.
+     * Le transfert vers le stockage (PUT S3 compris) se fait hors transaction : seules la
+     * lecture verrouillée du blob, sa création et le compteur de références tiennent une connexion.
+     */
+    private MediaFileDTO referencerContenu(String sha256, Path partiel, String extension, long taille,
+                                           MediaFile mediaFile) throws IOException {
+        MediaFileDTO existant = transactionTemplate.execute(status ->
+                mediaBlobRepository.findForUpdateBySha256(sha256)
+                        .map(blob -> rattacherAuBlob(blob, mediaFile))
+                        .orElse(null));
+        if (existant != null) {
+            return existant;
+        }
+
+        // Une suppression encore en attente viserait le fichier qu'on s'apprête à écrire :
+        // elle est annulée (ou attendue si elle est en cours) avant l'écriture
+        transactionTemplate.executeWithoutResult(status -> pendingDeletionService.annulerPourContenu(sha256));
+        String nomContenu = extension.isEmpty() ? sha256 : sha256 + "." + extension;
+        StorageProvider provider = storageProviders.parDefaut();
+        String url = provider.stocker(partiel, nomContenu, mediaFile.getMime());
+
+        // Un upload parallèle du même contenu a pu créer le blob entre-temps : même adresse, mêmes octets
+        return transactionTemplate.execute(status -> {
+            MediaBlob blob = mediaBlobRepository.findForUpdateBySha256(sha256).orElseGet(() -> {
+                MediaBlob nouveau = new MediaBlob();
+                nouveau.setSha256(sha256);
+                nouveau.setUrl(url);
+                nouveau.setProvider(provider.getNom());
+                nouveau.setTaille(taille);
+                nouveau.setReferenceCount(0);
+                return nouveau;
+            });
+            return rattacherAuBlob(blob, mediaFile);
+        });
+    }
+
+    private MediaFileDTO rattacherAuBlob(MediaBlob blob, MediaFile mediaFile) {
+        blob.setReferenceCount(blob.getReferenceCount() + 1);
+        mediaBlobRepository.saveAndFlush(blob);
+
+        mediaFile.setSha256(blob.getSha256());
+        mediaFile.setSize(blob.getTaille() != null ? (double) blob.getTaille() / 1024 : null); // Taille en KB
+        mediaFile.setUrl(blob.getUrl());
+        mediaFile.setProvider(blob.getProvider() != null ? blob.getProvider() : LocalStorageProvider.NOM);
+
+        // Pour les images, thumbnail et medium pointent sur l'original jusqu'à ce que
+        // ImageDerivativeService ait généré les fichiers thumb_ / medium_ ; un contenu
+        // déjà traité réutilise directement ses dérivés
+        boolean image = mediaFile.getMime() != null && mediaFile.getMime().startsWith("image/");
+        Optional<MediaFile> dejaTraite = image
+                ? mediaFileRepository.findFirstBySha256AndDerivesPretsTrue(blob.getSha256())
+                : Optional.empty();
+        if (dejaTraite.isPresent()) {
+            mediaFile.setWidth(dejaTraite.get().getWidth());
+            mediaFile.setHeight(dejaTraite.get().getHeight());
+            mediaFile.setThumbnailUrl(dejaTraite.get().getThumbnailUrl());
+            mediaFile.setMediumUrl(dejaTraite.get().getMediumUrl());
+            mediaFile.setDerivesPrets(true);
+        } else if (image) {
+            mediaFile.setThumbnailUrl(mediaFile.getUrl());
+            mediaFile.setMediumUrl(mediaFile.getUrl());
+            mediaFile.setDerivesPrets(false);
+        } else {
+            mediaFile.setDerivesPrets(true);
+        }
+
+        MediaFile savedMediaFile = mediaFileRepository.save(mediaFile);
+        if (!Boolean.TRUE.equals(savedMediaFile.getDerivesPrets())) {
+            eventPublisher.publishEvent(new MediaFileUploadedEvent(savedMediaFile.getId()));
+        }
+        return convertToDto(savedMediaFile);
+    }
+
+    private MediaFile mediaFile(String name, String mime, String alternativeText, String caption) {
         MediaFile mediaFile = new MediaFile();
-        mediaFile.setName(originalFileName);
+        mediaFile.setName(name);
         mediaFile.setAlternativeText(alternativeText);
         mediaFile.setCaption(caption);
-        mediaFile.setExt(fileExtension);
-        mediaFile.setMime(file.getContentType());
-        mediaFile.setSize((double) file.getSize() / 1024); // Taille en KB
-        mediaFile.setUrl("/" + UPLOAD_DIR + uniqueFileName);
-        mediaFile.setProvider("local");
-
-        // Pour les images, générer les URLs pour les thumbnails et medium
-        if (file.getContentType() != null && file.getContentType().startsWith("image/")) {
-            // Ici vous pouvez ajouter la logique pour générer les thumbnails
-            // Pour l'instant, on utilise la même URL
-            mediaFile.setThumbnailUrl("/" + UPLOAD_DIR + "thumb_" + uniqueFileName);
-            mediaFile.setMediumUrl("/" + UPLOAD_DIR + "medium_" + uniqueFileName);
+        mediaFile.setExt(getFileExtension(name));
+        mediaFile.setMime(mime);
+        return mediaFile;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
         }
+    }
 
-        MediaFile savedMediaFile = mediaFileRepository.save(mediaFile);
-        return convertToDto(savedMediaFile);
+    /**
+     * Fichier servi par l'application derrière une URL /uploads/... ; vide si l'URL est
+     * inconnue, sort du répertoire d'upload, ou désigne un stockage objet (servi par lui-même)
+     */
+    public Optional<Resource> loadAsResource(String fileUrl) {
+        Optional<Resource> resource = storageProviders.pourUrl(fileUrl).flatMap(provider -> provider.charger(fileUrl));
+        if (resource.isPresent()) {
+            return resource;
+        }
+        // URL à plat déjà migrée vers le répertoire réparti (lien en cache chez un client)
+        String urlRepartie = shardedStorageProvider.urlRepartie(fileUrl);
+        return urlRepartie != null ? shardedStorageProvider.charger(urlRepartie) : Optional.empty();
     }
 
     /**
@@ -221,36 +450,59 @@ public class MediaFileService extends BaseService<MediaFile, MediaFileDTO> {
     }
 
     /**
-     * Méthode pour supprimer le fichier physique
+     * Méthode pour obtenir les statistiques des fichiers.
+     * Une requête GROUP BY (mime, provider) donne totaux, familles et providers ; deux autres
+     * donnent la répartition par extension et par mois. Aucune entité n'est chargée.
      */
-    private void deletePhysicalFile(String fileUrl) {
-        try {
-            if (fileUrl != null && fileUrl.startsWith("/")) {
-                Path filePath = Paths.get(fileUrl.substring(1)); // Retirer le slash initial
-                Files.deleteIfExists(filePath);
+    @Cacheable(value = CacheConfig.MEDIA_STATS, key = "'global'")
+    public MediaStats getMediaStats() {
+        long totalFiles = 0;
+        double totalSize = 0;
+        long imageCount = 0;
+        long pdfCount = 0;
+        Map<String, Repartition> parFamille = new TreeMap<>();
+        Map<String, Repartition> parProvider = new TreeMap<>();
+
+        for (Object[] ligne : mediaFileRepository.statsParMimeEtProvider()) {
+            String mime = (String) ligne[0];
+            long count = ((Number) ligne[2]).longValue();
+            double taille = ((Number) ligne[3]).doubleValue();
+
+            totalFiles += count;
+            totalSize += taille;
+            if (mime != null && mime.startsWith("image/")) {
+                imageCount += count;
+            }
+            if ("application/pdf".equals(mime)) {
+                pdfCount += count;
             }
-        } catch (IOException e) {
-            // Logger l'erreur mais ne pas arrêter l'exécution
-            System.err.println("Erreur lors de la suppression du fichier physique: " + fileUrl);
+            parFamille.merge(familleMime(mime), new Repartition(familleMime(mime), count, taille), Repartition::plus);
+            String provider = ligne[1] != null ? (String) ligne[1] : "inconnu";
+            parProvider.merge(provider, new Repartition(provider, count, taille), Repartition::plus);
         }
+
+        List<Repartition> parExtension = mediaFileRepository.statsParExtension().stream()
+                .map(ligne -> new Repartition(ligne[0] != null ? (String) ligne[0] : "inconnue",
+                        ((Number) ligne[1]).longValue(), ((Number) ligne[2]).doubleValue()))
+                .sorted(Comparator.comparingLong(Repartition::getCount).reversed())
+                .collect(Collectors.toList());
+
+        List<Repartition> parMois = mediaFileRepository.statsParMois().stream()
+                .map(ligne -> new Repartition(
+                        String.format("%04d-%02d", ((Number) ligne[0]).intValue(), ((Number) ligne[1]).intValue()),
+                        ((Number) ligne[2]).longValue(), ((Number) ligne[3]).doubleValue()))
+                .collect(Collectors.toList());
+
+        return new MediaStats(totalFiles, totalSize, imageCount, pdfCount,
+                List.copyOf(parFamille.values()), List.copyOf(parProvider.values()), parExtension, parMois);
     }
 
-    /**
-     * Méthode pour obtenir les statistiques des fichiers
-     */
-    public MediaStats getMediaStats() {
-        List<MediaFile> allFiles = mediaFileRepository.findAll();
-        
-        long totalFiles = allFiles.size();
-        double totalSize = allFiles.stream().mapToDouble(MediaFile::getSize).sum();
-        long imageCount = allFiles.stream()
-                .filter(f -> f.getMime() != null && f.getMime().startsWith("image/"))
-                .count();
-        long pdfCount = allFiles.stream()
-                .filter(f -> f.getMime() != null && f.getMime().equals("application/pdf"))
-                .count();
-        
-        return new MediaStats(totalFiles, totalSize, imageCount, pdfCount);
+    // "image/png" -> "image" ; mime absent ou mal formé -> "autre"
+    private String familleMime(String mime) {
+        if (mime == null || mime.indexOf('/') <= 0) {
+            return "autre";
+        }
+        return mime.substring(0, mime.indexOf('/'));
     }
 
     // Classe interne pour les statistiques
@@ -259,12 +511,22 @@ public class MediaFileService extends BaseService<MediaFile, MediaFileDTO> {
         private final double totalSizeKB;
         private final long imageCount;
         private final long pdfCount;
-
-        public MediaStats(long totalFiles, double totalSizeKB, long imageCount, long pdfCount) {
+        private final List<Repartition> parFamille;
+        private final List<Repartition> parProvider;
+        private final List<Repartition> parExtension;
+        private final List<Repartition> parMois;
+
+        public MediaStats(long totalFiles, double totalSizeKB, long imageCount, long pdfCount,
+                          List<Repartition> parFamille, List<Repartition> parProvider,
+                          List<Repartition> parExtension, List<Repartition> parMois) {
             this.totalFiles = totalFiles;
             this.totalSizeKB = totalSizeKB;
             this.imageCount = imageCount;
             this.pdfCount = pdfCount;
+            this.parFamille = parFamille;
+            this.parProvider = parProvider;
+            this.parExtension = parExtension;
+            this.parMois = parMois;
         }
 
         // Getters
@@ -273,5 +535,30 @@ public class MediaFileService extends BaseService<MediaFile, MediaFileDTO> {
         public double getTotalSizeMB() { return totalSizeKB / 1024; }
         public long getImageCount() { return imageCount; }
         public long getPdfCount() { return pdfCount; }
+        public List<Repartition> getParFamille() { return parFamille; }
+        public List<Repartition> getParProvider() { return parProvider; }
+        public List<Repartition> getParExtension() { return parExtension; }
+        public List<Repartition> getParMois() { return parMois; }
+    }
+
+    // Une ligne de répartition : clé (famille, provider, extension ou mois "yyyy-MM")
+    public static class Repartition {
+        private final String cle;
+        private final long count;
+        private final double sizeKB;
+
+        public Repartition(String cle, long count, double sizeKB) {
+            this.cle = cle;
+            this.count = count;
+            this.sizeKB = sizeKB;
+        }
+
+        Repartition plus(Repartition autre) {
+            return new Repartition(cle, count + autre.count, sizeKB + autre.sizeKB);
+        }
+
+        public String getCle() { return cle; }
+        public long getCount() { return count; }
+        public double getSizeKB() { return sizeKB; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package com.example.back_gestion_Stage.Services;
+
+/**
+ * Publié après l'enregistrement d'une image pour déclencher la génération des dérivés.
+ */
+public record MediaFileUploadedEvent(Long mediaFileId) {
+}
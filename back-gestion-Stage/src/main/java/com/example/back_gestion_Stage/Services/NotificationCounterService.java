@@ -0,0 +1,150 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Repositories.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs de notifications non lues par compte, tenus en mémoire.
+ * Chargés au démarrage, ajustés après chaque commit via NotificationEvent
+ * et recalés périodiquement sur la base (l'état fait foi côté SQL).
+ * Lectures et deltas sont sans verrou ; seul le recalage se coordonne avec eux, par
+ * compare-and-set : il ne touche un compte que si aucune transaction le concernant n'était
+ * en cours et qu'aucun delta n'y a été appliqué depuis le début de la relecture. La photo
+ * SQL et le compteur décrivent alors le même état, sans delta perdu ni compté deux fois.
+ */
+@Service
+public class NotificationCounterService {
+
+    // Bits de poids faible de l'état : transactions en cours ; le reste : version du dernier delta
+    private static final int BITS_EN_COURS = 20;
+    private static final long MASQUE_EN_COURS = (1L << BITS_EN_COURS) - 1;
+
+    private static final class Compteur {
+        final AtomicLong valeur = new AtomicLong();
+        final AtomicLong etat = new AtomicLong();
+    }
+
+    // Un compte sans notification non lue garde son entrée, remise à 0 par le recalage :
+    // la retirer ferait perdre un delta appliqué à l'instance retirée
+    private final Map<String, Compteur> nonLuesParCompte = new ConcurrentHashMap<>();
+
+    // Numérote les deltas appliqués pour les situer par rapport au début d'un recalage
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile boolean initialise = false;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiser() {
+        reconcilier();
+        initialise = true;
+    }
+
+    public long countNonLues(String compteUtilisateurDocumentId) {
+        if (compteUtilisateurDocumentId == null) {
+            return 0L;
+        }
+        if (!initialise) {
+            return notificationRepository.countByCompteUtilisateurDocumentIdAndNonLues(compteUtilisateurDocumentId);
+        }
+        Compteur compteur = nonLuesParCompte.get(compteUtilisateurDocumentId);
+        return compteur == null ? 0L : Math.max(0L, compteur.valeur.get());
+    }
+
+    /**
+     * Reçu au moment de la publication, dans la transaction : le compte est marqué "en cours"
+     * jusqu'à la fin de celle-ci et le delta n'est appliqué qu'après commit, avant les
+     * écouteurs AFTER_COMMIT (flux SSE) pour qu'ils lisent la valeur à jour.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onNotificationEvent(NotificationEvent event) {
+        String compteId = event.compteUtilisateurDocumentId();
+        if (compteId == null || event.deltaNonLues() == 0) {
+            return;
+        }
+        Compteur compteur = nonLuesParCompte.computeIfAbsent(compteId, id -> new Compteur());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appliquer(compteur, event.deltaNonLues());
+            return;
+        }
+        compteur.etat.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                appliquer(compteur, event.deltaNonLues());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                compteur.etat.decrementAndGet();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.counter.reconcile-ms:300000}",
+               initialDelayString = "${app.notifications.counter.reconcile-ms:300000}")
+    public void reconcilier() {
+        long debut = sequence.get();
+        Map<String, Long> enBase = new HashMap<>();
+        List<Object[]> lignes = notificationRepository.countNonLuesParCompte();
+        for (Object[] ligne : lignes) {
+            if (ligne[0] == null) {
+                continue;
+            }
+            enBase.put((String) ligne[0], ((Number) ligne[1]).longValue());
+        }
+
+        enBase.forEach((compteId, nombre) ->
+                recaler(nonLuesParCompte.computeIfAbsent(compteId, id -> new Compteur()), nombre, debut));
+        nonLuesParCompte.forEach((compteId, compteur) -> {
+            if (!enBase.containsKey(compteId)) {
+                recaler(compteur, 0L, debut);
+            }
+        });
+    }
+
+    /**
+     * La valeur est lue avant l'état : un delta appliqué entre les deux a fait avancer la version
+     * au-delà de debut, et un delta appliqué ensuite appartient à une transaction vue en cours.
+     * Le compare-and-set échoue si la valeur a bougé après sa lecture ; le compte sera recalé
+     * au passage suivant.
+     */
+    private static void recaler(Compteur compteur, long nombre, long debut) {
+        long valeur = compteur.valeur.get();
+        long etat = compteur.etat.get();
+        if ((etat & MASQUE_EN_COURS) != 0 || (etat >>> BITS_EN_COURS) > debut) {
+            return;
+        }
+        compteur.valeur.compareAndSet(valeur, nombre);
+    }
+
+    // Valeur d'abord, version ensuite : voir recaler
+    private void appliquer(Compteur compteur, long delta) {
+        compteur.valeur.addAndGet(delta);
+        long version = sequence.incrementAndGet();
+        compteur.etat.getAndUpdate(etat ->
+                (Math.max(etat >>> BITS_EN_COURS, version) << BITS_EN_COURS) | (etat & MASQUE_EN_COURS));
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.DTOs.NotificationDTO;
+
+/**
+ * Publié par NotificationService à chaque changement touchant un compte ;
+ * notification est null quand seul le nombre de non lues a changé,
+ * deltaNonLues donne la variation de ce nombre.
+ */
+public record NotificationEvent(String compteUtilisateurDocumentId, NotificationDTO notification, long deltaNonLues) {
+}
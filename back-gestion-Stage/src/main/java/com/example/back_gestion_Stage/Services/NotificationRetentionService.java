@@ -0,0 +1,71 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Repositories.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Purge des notifications lues plus anciennes que app.notifications.retention.days.
+ * Les suppressions se font par tranches, chacune dans sa propre transaction,
+ * pour ne jamais garder de verrous longs sur la table.
+ */
+@Service
+public class NotificationRetentionService {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.notifications.retention.days:90}")
+    private int joursRetention;
+
+    @Value("${app.notifications.retention.chunk-size:1000}")
+    private int tailleTranche;
+
+    private final Counter lignesPurgees;
+    private final Timer dureePurge;
+
+    public NotificationRetentionService(MeterRegistry meterRegistry) {
+        this.lignesPurgees = Counter.builder("notifications.retention.purged")
+                .description("Notifications lues supprimées par la rétention")
+                .register(meterRegistry);
+        this.dureePurge = Timer.builder("notifications.retention.duration")
+                .description("Durée d'une passe de rétention")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.notifications.retention.cron:0 30 3 * * *}")
+    public void purgerPlanifie() {
+        purgerLuesPlusAnciennesQue(joursRetention);
+    }
+
+    public long purgerLuesPlusAnciennesQue(int jours) {
+        if (jours < 0) {
+            throw new IllegalArgumentException("Le nombre de jours doit être positif");
+        }
+        LocalDateTime avant = LocalDateTime.now().minusDays(jours);
+
+        return dureePurge.record(() -> {
+            long total = 0;
+            int supprimees;
+            do {
+                Integer resultat = transactionTemplate.execute(
+                        status -> notificationRepository.deleteLuesAvant(avant, tailleTranche));
+                supprimees = resultat != null ? resultat : 0;
+                total += supprimees;
+                lignesPurgees.increment(supprimees);
+            } while (supprimees == tailleTranche);
+            return total;
+        });
+    }
+}
@@ -2,20 +2,53 @@ package com.example.back_gestion_Stage.Services;
 
 import com.example.back_gestion_Stage.Entities.Notification;
 import com.example.back_gestion_Stage.DTOs.NotificationDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Repositories.NotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
+@Transactional
 public class NotificationService extends BaseService<Notification, NotificationDTO> {
 
+    public static final int BATCH_SIZE = 500;
+
+    // L'id IDENTITY empêche Hibernate de regrouper les INSERT : le lot passe donc par JDBC
+    private static final String INSERT_NOTIFICATION =
+            "INSERT INTO notifications (document_id, created_at, updated_at, titre, message, type, lue, " +
+            "document_id_reference, type_reference, compte_utilisateur_document_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?, ?)";
+
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationRetentionService notificationRetentionService;
+
     @Override
     protected NotificationRepository getRepository() {
         return notificationRepository;
@@ -66,10 +99,26 @@ public class NotificationService extends BaseService<Notification, NotificationD
         // Ne pas mettre à jour : id, documentId, createdAt, updatedAt
     }
 
+    // Les mises à jour génériques (POST / PUT) peuvent changer lue ou le compte : on ajuste les compteurs
     @Override
-    public Optional<NotificationDTO> findByDocumentId(String documentId) {
-        return notificationRepository.findByDocumentId(documentId)
-                .map(this::convertToDto);
+    public NotificationDTO save(NotificationDTO dto) {
+        Optional<Notification> existante = dto.getId() != null ? notificationRepository.findById(dto.getId()) : Optional.empty();
+        String ancienCompteNonLu = existante
+                .filter(notification -> !notification.isLue())
+                .map(Notification::getCompteUtilisateurDocumentId)
+                .orElse(null);
+
+        NotificationDTO saved = super.save(dto);
+
+        if (ancienCompteNonLu != null) {
+            eventPublisher.publishEvent(new NotificationEvent(ancienCompteNonLu, null, -1));
+        }
+        if (existante.isEmpty()) {
+            eventPublisher.publishEvent(new NotificationEvent(saved.getCompteUtilisateurDocumentId(), saved, saved.isLue() ? 0 : 1));
+        } else if (!saved.isLue()) {
+            eventPublisher.publishEvent(new NotificationEvent(saved.getCompteUtilisateurDocumentId(), null, 1));
+        }
+        return saved;
     }
 
     public List<NotificationDTO> findByCompteUtilisateurDocumentId(String compteUtilisateurDocumentId) {
@@ -79,6 +128,13 @@ public class NotificationService extends BaseService<Notification, NotificationD
                 .collect(Collectors.toList());
     }
 
+    public CursorPage<NotificationDTO> findPageByCompteUtilisateurDocumentId(String compteUtilisateurDocumentId, String cursor, int limit) {
+        return findPage(cursor, limit,
+                pageable -> notificationRepository.findPageStartByCompte(compteUtilisateurDocumentId, pageable),
+                (position, pageable) -> notificationRepository.findPageAfterByCompte(
+                        compteUtilisateurDocumentId, position.createdAt(), position.id(), pageable));
+    }
+
     public List<NotificationDTO> findByCompteUtilisateurDocumentIdAndNonLues(String compteUtilisateurDocumentId) {
         return notificationRepository.findByCompteUtilisateurDocumentIdAndLue(compteUtilisateurDocumentId, false)
                 .stream()
@@ -104,19 +160,22 @@ public class NotificationService extends BaseService<Notification, NotificationD
         Optional<Notification> notificationOpt = notificationRepository.findByDocumentId(documentId);
         if (notificationOpt.isPresent()) {
             Notification notification = notificationOpt.get();
+            long delta = notification.isLue() ? 0 : -1;
             notification.setLue(true);
             Notification savedNotification = notificationRepository.save(notification);
+            eventPublisher.publishEvent(new NotificationEvent(savedNotification.getCompteUtilisateurDocumentId(), null, delta));
             return convertToDto(savedNotification);
         }
         throw new RuntimeException("Notification non trouvée");
     }
 
     public void marquerToutesCommeLues(String compteUtilisateurDocumentId) {
-        notificationRepository.marquerToutesCommeLues(compteUtilisateurDocumentId);
+        int marquees = notificationRepository.marquerToutesCommeLues(compteUtilisateurDocumentId);
+        eventPublisher.publishEvent(new NotificationEvent(compteUtilisateurDocumentId, null, -marquees));
     }
 
     public Long countNonLuesByCompteUtilisateurDocumentId(String compteUtilisateurDocumentId) {
-        return notificationRepository.countByCompteUtilisateurDocumentIdAndNonLues(compteUtilisateurDocumentId);
+        return notificationCounterService.countNonLues(compteUtilisateurDocumentId);
     }
 
     public NotificationDTO createNotification(String titre, String message, Notification.TypeNotification type, 
@@ -131,18 +190,65 @@ public class NotificationService extends BaseService<Notification, NotificationD
         notification.setLue(false);
 
         Notification savedNotification = notificationRepository.save(notification);
-        return convertToDto(savedNotification);
+        NotificationDTO dto = convertToDto(savedNotification);
+        eventPublisher.publishEvent(new NotificationEvent(compteUtilisateurDocumentId, dto, 1));
+        return dto;
+    }
+
+    /**
+     * Crée plusieurs notifications en une transaction : INSERT groupés par lots de BATCH_SIZE,
+     * puis une seule relecture par documentId. Un événement est publié par destinataire après commit.
+     */
+    public List<NotificationDTO> createNotifications(List<NotificationDTO> notifications) {
+        if (notifications == null || notifications.isEmpty()) {
+            return List.of();
+        }
+
+        Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+        Map<String, Integer> ordre = new HashMap<>();
+        List<Object[]> lignes = new ArrayList<>(notifications.size());
+        for (NotificationDTO dto : notifications) {
+            if (dto.getTitre() == null || dto.getMessage() == null || dto.getType() == null) {
+                throw new IllegalArgumentException("Titre, message et type sont obligatoires pour chaque notification");
+            }
+            String documentId = UUID.randomUUID().toString();
+            ordre.put(documentId, ordre.size());
+            lignes.add(new Object[] {
+                documentId, maintenant, maintenant, dto.getTitre(), dto.getMessage(), dto.getType().name(),
+                dto.getDocumentIdReference(), dto.getTypeReference(), dto.getCompteUtilisateurDocumentId()
+            });
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, lignes, BATCH_SIZE, (ps, ligne) -> {
+            for (int i = 0; i < ligne.length; i++) {
+                ps.setObject(i + 1, ligne[i]);
+            }
+        });
+
+        List<NotificationDTO> creees = notificationRepository.findAllByDocumentIdIn(ordre.keySet())
+                .stream()
+                .sorted(Comparator.comparing(notification -> ordre.get(notification.getDocumentId())))
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        creees.forEach(dto -> eventPublisher.publishEvent(
+                new NotificationEvent(dto.getCompteUtilisateurDocumentId(), dto, 1)));
+        return creees;
     }
 
     @Override
     public void deleteByDocumentId(String documentId) {
         notificationRepository.findByDocumentId(documentId)
-                .ifPresent(notification -> notificationRepository.deleteById(notification.getId()));
+                .ifPresent(notification -> {
+                    notificationRepository.deleteById(notification.getId());
+                    eventPublisher.publishEvent(new NotificationEvent(
+                            notification.getCompteUtilisateurDocumentId(), null, notification.isLue() ? 0 : -1));
+                });
     }
 
-    public void deleteOldNotifications(int daysOld) {
-        // Implémentation pour supprimer les notifications anciennes
-        // Cette méthode nécessiterait un champ de date supplémentaire ou utiliser createdAt
+    // Hors transaction : la purge ouvre une transaction courte par tranche
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long deleteOldNotifications(int daysOld) {
+        return notificationRetentionService.purgerLuesPlusAnciennesQue(daysOld);
     }
 
     public long countTotalNotifications() {
@@ -0,0 +1,107 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Config.AsyncConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des flux SSE ouverts par compte utilisateur.
+ * Les connexions sont tenues par le conteneur en mode asynchrone : aucun thread
+ * n'est bloqué par client, les envois se font après commit sur un petit pool dédié.
+ */
+@Service
+public class NotificationStreamService {
+
+    public static final String EVENT_NOTIFICATION = "notification";
+    public static final String EVENT_COUNT_NON_LUES = "count-non-lues";
+
+    private final Map<String, Set<SseEmitter>> emittersParCompte = new ConcurrentHashMap<>();
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Value("${app.notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public SseEmitter subscribe(String compteUtilisateurDocumentId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emittersParCompte.compute(compteUtilisateurDocumentId, (id, emitters) -> {
+            Set<SseEmitter> ensemble = emitters != null ? emitters : ConcurrentHashMap.<SseEmitter>newKeySet();
+            ensemble.add(emitter);
+            return ensemble;
+        });
+
+        Runnable retirer = () -> retirer(compteUtilisateurDocumentId, emitter);
+        emitter.onCompletion(retirer);
+        emitter.onTimeout(retirer);
+        emitter.onError(erreur -> retirer.run());
+
+        // Valeur initiale du badge pour éviter un appel count-non-lues à l'ouverture
+        envoyer(compteUtilisateurDocumentId, emitter, SseEmitter.event()
+                .name(EVENT_COUNT_NON_LUES)
+                .data(notificationCounterService.countNonLues(compteUtilisateurDocumentId)));
+        return emitter;
+    }
+
+    @Async(AsyncConfig.NOTIFICATION_STREAM_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationEvent(NotificationEvent event) {
+        String compteId = event.compteUtilisateurDocumentId();
+        if (compteId == null) {
+            return;
+        }
+        Set<SseEmitter> emitters = emittersParCompte.get(compteId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+
+        long nonLues = notificationCounterService.countNonLues(compteId);
+        for (SseEmitter emitter : emitters) {
+            if (event.notification() != null) {
+                envoyer(compteId, emitter, SseEmitter.event()
+                        .name(EVENT_NOTIFICATION)
+                        .id(event.notification().getDocumentId())
+                        .data(event.notification(), MediaType.APPLICATION_JSON));
+            }
+            envoyer(compteId, emitter, SseEmitter.event().name(EVENT_COUNT_NON_LUES).data(nonLues));
+        }
+    }
+
+    // Maintient les connexions à travers les proxys et détecte les clients partis
+    @Scheduled(fixedRateString = "${app.notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emittersParCompte.forEach((compteId, emitters) ->
+                emitters.forEach(emitter -> envoyer(compteId, emitter, SseEmitter.event().comment("ping"))));
+    }
+
+    public int countConnexions() {
+        return emittersParCompte.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void envoyer(String compteId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            retirer(compteId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void retirer(String compteId, SseEmitter emitter) {
+        emittersParCompte.computeIfPresent(compteId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vérification des mots de passe hors des threads de requête.
+ * BCrypt est volontairement coûteux en CPU : les vérifications passent par un pool borné
+ * (un thread par cœur par défaut) dont la file est limitée ; quand elle est pleine, la
+ * connexion est refusée tout de suite (AuthentificationSurchargeeException).
+ * Une vérification réussie est gardée quelques minutes, sous une clé HMAC de
+ * (email, mot de passe) calculée avec une clé aléatoire propre au processus : le mot de
+ * passe n'est jamais conservé, et l'entrée n'est valable que pour le hash BCrypt courant.
+ */
+@Service
+public class PasswordVerificationService {
+
+    private record Verification(String compteDocumentId, String motDePasseEncode) {
+    }
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, Verification> verifications;
+    private final SecretKeySpec cleHmac;
+    private final Counter rejets;
+    private final Timer dureeVerification;
+
+    public PasswordVerificationService(
+            @Value("${app.auth.bcrypt.threads:0}") int threads,
+            @Value("${app.auth.bcrypt.queue-capacity:100}") int capaciteFile,
+            @Value("${app.auth.credential-cache.ttl:5m}") Duration dureeCache,
+            @Value("${app.auth.credential-cache.max-size:10000}") long tailleCache,
+            MeterRegistry meterRegistry) {
+        int nombreThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger compteur = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(nombreThreads, nombreThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capaciteFile),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "auth-bcrypt-" + compteur.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.verifications = Caffeine.newBuilder()
+                .expireAfterWrite(dureeCache)
+                .maximumSize(tailleCache)
+                .recordStats()
+                .build();
+
+        byte[] cle = new byte[32];
+        new SecureRandom().nextBytes(cle);
+        this.cleHmac = new SecretKeySpec(cle, "HmacSHA256");
+
+        Gauge.builder("auth.bcrypt.queue", executor, e -> e.getQueue().size())
+                .description("Vérifications de mot de passe en attente")
+                .register(meterRegistry);
+        Gauge.builder("auth.bcrypt.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Vérifications de mot de passe en cours")
+                .register(meterRegistry);
+        this.rejets = Counter.builder("auth.bcrypt.rejected")
+                .description("Connexions refusées faute de place dans la file de vérification")
+                .register(meterRegistry);
+        this.dureeVerification = Timer.builder("auth.bcrypt.duration")
+                .description("Durée d'une vérification BCrypt")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, verifications, "authCredentials");
+    }
+
+    /**
+     * true si le mot de passe correspond au hash du compte. Le résultat vient du cache
+     * quand (email, mot de passe) a déjà été vérifié contre ce même hash ; sinon la
+     * vérification est confiée au pool BCrypt.
+     *
+     * @throws AuthentificationSurchargeeException si la file de vérification est pleine
+     */
+    public CompletableFuture<Boolean> verifier(String compteDocumentId, String email, String motDePasse,
+                                               String motDePasseEncode) {
+        if (motDePasseEncode == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        String cle = cle(email, motDePasse);
+        Verification connue = verifications.getIfPresent(cle);
+        if (connue != null && connue.compteDocumentId().equals(compteDocumentId)
+                && MessageDigest.isEqual(connue.motDePasseEncode().getBytes(StandardCharsets.UTF_8),
+                        motDePasseEncode.getBytes(StandardCharsets.UTF_8))) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                boolean valide = dureeVerification.record(() -> passwordEncoder.matches(motDePasse, motDePasseEncode));
+                if (valide) {
+                    verifications.put(cle, new Verification(compteDocumentId, motDePasseEncode));
+                }
+                return valide;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejets.increment();
+            throw new AuthentificationSurchargeeException();
+        }
+    }
+
+    // Oublie les vérifications d'un compte (mot de passe changé, compte désactivé ou supprimé)
+    public void invalider(String compteDocumentId) {
+        verifications.asMap().values().removeIf(verification -> verification.compteDocumentId().equals(compteDocumentId));
+    }
+
+    private String cle(String email, String motDePasse) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cleHmac);
+            mac.update(email.toLowerCase().getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return HexFormat.of().formatHex(mac.doFinal(motDePasse.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible", e);
+        }
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdown();
+    }
+}
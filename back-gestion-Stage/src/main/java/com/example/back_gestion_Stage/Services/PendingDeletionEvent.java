@@ -0,0 +1,9 @@
+package com.example.back_gestion_Stage.Services;
+
+import java.util.List;
+
+/**
+ * Publié quand des fichiers sont planifiés pour suppression ; traité après commit.
+ */
+public record PendingDeletionEvent(List<Long> pendingDeletionIds) {
+}
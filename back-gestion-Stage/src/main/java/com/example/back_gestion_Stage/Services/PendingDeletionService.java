@@ -0,0 +1,154 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Entities.PendingDeletion;
+import com.example.back_gestion_Stage.Repositories.PendingDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suppression asynchrone des fichiers physiques. Les suppressions sont d'abord
+ * enregistrées en base (PendingDeletion) dans la transaction appelante, puis exécutées
+ * après commit par un worker. Un échec repousse la ligne avec un délai croissant ;
+ * la reprise planifiée traite aussi les lignes restées en file lors d'un arrêt.
+ */
+@Slf4j
+@Service
+public class PendingDeletionService {
+
+    @Autowired
+    private PendingDeletionRepository pendingDeletionRepository;
+
+    @Autowired
+    private StorageProviderRegistry storageProviders;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.media.deletions.retry-base-ms:30000}")
+    private long delaiInitial;
+
+    @Value("${app.media.deletions.retry-max-ms:3600000}")
+    private long delaiMax;
+
+    @Value("${app.media.deletions.batch-size:500}")
+    private int tailleLot;
+
+    private final ThreadPoolExecutor executor;
+    private final Counter suppressionsReussies;
+    private final Counter suppressionsEchouees;
+
+    public PendingDeletionService(
+            @Value("${app.media.deletions.queue-capacity:1000}") int capaciteFile,
+            MeterRegistry meterRegistry) {
+        // File pleine : la tâche est abandonnée, la ligne reste en base pour la reprise planifiée
+        this.executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capaciteFile),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-suppressions");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.suppressionsReussies = Counter.builder("media.deletions.completed")
+                .description("Fichiers physiques supprimés")
+                .register(meterRegistry);
+        this.suppressionsEchouees = Counter.builder("media.deletions.failed")
+                .description("Tentatives de suppression de fichier en échec")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre les fichiers à supprimer ; doit être appelé dans la transaction
+     * qui supprime le MediaFile pour que les deux soient atomiques.
+     */
+    public void planifier(String provider, String sha256, Collection<String> urls) {
+        List<Long> ids = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            PendingDeletion pendingDeletion = new PendingDeletion();
+            pendingDeletion.setProvider(provider);
+            pendingDeletion.setUrl(url);
+            pendingDeletion.setSha256(sha256);
+            pendingDeletion.setTentatives(0);
+            // Le worker s'en charge tout de suite ; la reprise planifiée n'intervient qu'en secours
+            pendingDeletion.setProchaineTentative(LocalDateTime.now().plus(Duration.ofMillis(delaiInitial)));
+            ids.add(pendingDeletionRepository.save(pendingDeletion).getId());
+        }
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new PendingDeletionEvent(ids));
+        }
+    }
+
+    // Le contenu est à nouveau uploadé : ses fichiers ne doivent plus être supprimés
+    public void annulerPourContenu(String sha256) {
+        pendingDeletionRepository.deleteBySha256(sha256);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPendingDeletion(PendingDeletionEvent event) {
+        for (Long id : event.pendingDeletionIds()) {
+            executor.execute(() -> traiter(id));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.media.deletions.poll-ms:60000}")
+    public void reprendre() {
+        for (Long id : pendingDeletionRepository.findIdsEchus(LocalDateTime.now(), PageRequest.of(0, tailleLot))) {
+            executor.execute(() -> traiter(id));
+        }
+    }
+
+    public void traiter(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    pendingDeletionRepository.findForUpdateById(id).ifPresent(this::supprimer));
+        } catch (RuntimeException e) {
+            log.warn("Suppression différée {} non traitée", id, e);
+        }
+    }
+
+    private void supprimer(PendingDeletion pendingDeletion) {
+        try {
+            storageProviders.get(pendingDeletion.getProvider()).supprimer(pendingDeletion.getUrl());
+            pendingDeletionRepository.delete(pendingDeletion);
+            suppressionsReussies.increment();
+        } catch (Exception e) {
+            int tentatives = pendingDeletion.getTentatives() + 1;
+            long delai = Math.min(delaiMax, delaiInitial << Math.min(tentatives - 1, 20));
+            pendingDeletion.setTentatives(tentatives);
+            pendingDeletion.setProchaineTentative(LocalDateTime.now().plus(Duration.ofMillis(delai)));
+            String message = String.valueOf(e.getMessage());
+            pendingDeletion.setDerniereErreur(message.length() > 1000 ? message.substring(0, 1000) : message);
+            pendingDeletionRepository.save(pendingDeletion);
+            suppressionsEchouees.increment();
+            log.warn("Suppression de {} en échec (tentative {}), nouvel essai dans {} ms",
+                    pendingDeletion.getUrl(), tentatives, delai);
+        }
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitation de débit en mémoire, par seau de jetons : "capacite/periode" autorise une
+ * rafale de capacite requêtes puis une requête toutes les periode/capacite.
+ * Chaque seau tient dans un seul AtomicLong (instant théorique de la prochaine requête,
+ * algorithme GCRA) mis à jour par compare-and-set, sans verrou. Un seau inutilisé pendant
+ * une période entière est de nouveau plein : il est alors retiré du cache (expiration
+ * glissante), ce qui ne change rien au débit autorisé.
+ * Les seaux sont propres à l'instance ; derrière un répartiteur, la limite effective est
+ * multipliée par le nombre d'instances.
+ */
+@Service
+public class RateLimiterService {
+
+    public record Politique(String nom, String methode, String motif, int capacite, Duration periode) {
+
+        long intervalleNanos() {
+            return periode.toNanos() / capacite;
+        }
+
+        long toleranceNanos() {
+            return periode.toNanos();
+        }
+    }
+
+    // retryAfterSecondes vaut 0 quand la requête est acceptée
+    public record Decision(boolean autorisee, long retryAfterSecondes) {
+        static final Decision AUTORISEE = new Decision(true, 0);
+    }
+
+    // Une politique, ses seaux (un par clé) et son compteur de refus
+    private record Limite(Politique politique, Cache<String, AtomicLong> seaux, Counter rejets) {
+
+        Decision consommer(String cle) {
+            Decision decision = RateLimiterService.consommer(politique,
+                    seaux.get(cle, c -> new AtomicLong(System.nanoTime())));
+            if (!decision.autorisee()) {
+                rejets.increment();
+            }
+            return decision;
+        }
+    }
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final boolean active;
+    private final List<Limite> routes = new ArrayList<>();
+    private final Limite compte;
+
+    /**
+     * @param routes   "METHODE /motif/ant capacite/periode", par exemple
+     *                 "POST /api/comptes-utilisateurs/authenticate 10/1m"
+     * @param compte   seau par compte pour /authenticate, indépendant de l'adresse IP
+     */
+    public RateLimiterService(
+            @Value("${app.rate-limit.enabled:true}") boolean active,
+            @Value("${app.rate-limit.routes:}") List<String> routes,
+            @Value("${app.rate-limit.account:10/1m}") String compte,
+            @Value("${app.rate-limit.max-keys:100000}") long maxCles,
+            MeterRegistry meterRegistry) {
+        this.active = active;
+        for (String route : routes) {
+            if (route.isBlank()) {
+                continue;
+            }
+            String[] parties = route.trim().split("\\s+");
+            if (parties.length != 3) {
+                throw new IllegalArgumentException("Route de limitation invalide : " + route);
+            }
+            this.routes.add(limite(politique(parties[0] + " " + parties[1], parties[0].toUpperCase(Locale.ROOT),
+                    parties[1], parties[2]), maxCles, meterRegistry));
+        }
+        this.compte = limite(politique("compte", null, null, compte), maxCles, meterRegistry);
+    }
+
+    /**
+     * Consomme un jeton pour la clé (adresse IP) dans la première politique dont la méthode
+     * et le motif correspondent ; vide si la route n'est pas limitée.
+     */
+    public Optional<Decision> consommerPourRoute(String methode, String chemin, String cle) {
+        if (!active) {
+            return Optional.empty();
+        }
+        for (Limite limite : routes) {
+            Politique politique = limite.politique();
+            if (politique.methode().equals(methode) && MATCHER.match(politique.motif(), chemin)) {
+                return Optional.of(limite.consommer(cle));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Tentatives de connexion sur un même compte, quelle que soit l'adresse d'origine
+    public Decision consommerCompte(String email) {
+        if (!active) {
+            return Decision.AUTORISEE;
+        }
+        return compte.consommer(email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static Decision consommer(Politique politique, AtomicLong seau) {
+        long intervalle = politique.intervalleNanos();
+        long tolerance = politique.toleranceNanos();
+        while (true) {
+            long maintenant = System.nanoTime();
+            long prevu = seau.get();
+            long suivant = Math.max(prevu - maintenant, 0) + intervalle;
+            if (suivant > tolerance) {
+                long attente = suivant - tolerance;
+                return new Decision(false, Math.max(1, (attente + 999_999_999L) / 1_000_000_000L));
+            }
+            if (seau.compareAndSet(prevu, maintenant + suivant)) {
+                return Decision.AUTORISEE;
+            }
+        }
+    }
+
+    private static Politique politique(String nom, String methode, String motif, String debit) {
+        String[] parties = debit.trim().split("/");
+        try {
+            int capacite = Integer.parseInt(parties[0]);
+            Duration periode = DurationStyle.detectAndParse(parties[1]);
+            if (parties.length != 2 || capacite <= 0 || periode.isNegative() || periode.isZero()) {
+                throw new IllegalArgumentException();
+            }
+            return new Politique(nom, methode, motif, capacite, periode);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Débit invalide pour " + nom + " : " + debit);
+        }
+    }
+
+    private static Limite limite(Politique politique, long maxCles, MeterRegistry meterRegistry) {
+        Cache<String, AtomicLong> seaux = Caffeine.newBuilder()
+                .expireAfterAccess(politique.periode())
+                .maximumSize(maxCles)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, seaux, "rateLimit." + politique.nom());
+        Counter rejets = Counter.builder("ratelimit.rejected")
+                .description("Requêtes refusées par la limitation de débit")
+                .tag("route", politique.nom())
+                .register(meterRegistry);
+        return new Limite(politique, seaux, rejets);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.back_gestion_Stage.Services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Stockage objet compatible S3 (AWS, MinIO, Ceph…) en adressage par chemin
+ * (endpoint/bucket/cle), requêtes signées en AWS Signature V4.
+ * Les URLs enregistrées sont publiques (app.storage.s3.public-base-url) : le
+ * téléchargement est redirigé vers le stockage, qui gère lui-même Range et ETag.
+ * Actif uniquement si app.storage.s3.endpoint est renseigné.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.s3.endpoint")
+public class S3StorageProvider implements StorageProvider {
+
+    public static final String NOM = "s3";
+
+    private static final String ALGORITHME = "AWS4-HMAC-SHA256";
+    private static final String PAYLOAD_NON_SIGNE = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter FORMAT_DATE_HEURE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter FORMAT_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final String urlPublique;
+    private final HttpClient httpClient;
+
+    public S3StorageProvider(
+            @Value("${app.storage.s3.endpoint}") String endpoint,
+            @Value("${app.storage.s3.bucket}") String bucket,
+            @Value("${app.storage.s3.region:us-east-1}") String region,
+            @Value("${app.storage.s3.access-key}") String accessKey,
+            @Value("${app.storage.s3.secret-key}") String secretKey,
+            @Value("${app.storage.s3.public-base-url:}") String urlPublique) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        String base = urlPublique.isBlank() ? this.endpoint + "/" + bucket : urlPublique;
+        this.urlPublique = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    @Override
+    public String getNom() {
+        return NOM;
+    }
+
+    // Pas de répertoires côté stockage objet : les clés restent à plat
+    @Override
+    public String urlPour(String nomFichier) {
+        return urlPublique + "/" + nomFichier;
+    }
+
+    @Override
+    public boolean gere(String url) {
+        return url != null && url.startsWith(urlPublique + "/");
+    }
+
+    @Override
+    public void ecrire(Path source, String url, String contentType) throws IOException {
+        HttpRequest.Builder requete = requeteSignee("PUT", cle(url))
+                .PUT(HttpRequest.BodyPublishers.ofFile(source));
+        if (contentType != null) {
+            requete.header("Content-Type", contentType);
+        }
+        HttpResponse<String> reponse = envoyer(requete.build(), HttpResponse.BodyHandlers.ofString());
+        verifier(reponse.statusCode(), "PUT", url);
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public InputStream ouvrir(String url) throws IOException {
+        HttpResponse<InputStream> reponse = envoyer(requeteSignee("GET", cle(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (reponse.statusCode() / 100 != 2) {
+            reponse.body().close();
+            throw new IOException("GET " + url + " : HTTP " + reponse.statusCode());
+        }
+        return reponse.body();
+    }
+
+    @Override
+    public Optional<Resource> charger(String url) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void supprimer(String url) throws IOException {
+        HttpResponse<String> reponse = envoyer(requeteSignee("DELETE", cle(url)).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (reponse.statusCode() != 404) {
+            verifier(reponse.statusCode(), "DELETE", url);
+        }
+    }
+
+    private String cle(String url) throws IOException {
+        if (!gere(url)) {
+            throw new IOException("URL hors du bucket " + bucket + " : " + url);
+        }
+        return url.substring(urlPublique.length() + 1);
+    }
+
+    private HttpRequest.Builder requeteSignee(String methode, String cle) {
+        StringBuilder chemin = new StringBuilder(endpoint.getRawPath()).append('/').append(encoder(bucket));
+        for (String segment : cle.split("/")) {
+            chemin.append('/').append(encoder(segment));
+        }
+        URI uri = URI.create(endpoint.getScheme() + "://" + endpoint.getRawAuthority() + chemin);
+
+        ZonedDateTime maintenant = ZonedDateTime.now(ZoneOffset.UTC);
+        String dateHeure = FORMAT_DATE_HEURE.format(maintenant);
+        String date = FORMAT_DATE.format(maintenant);
+        String hote = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+
+        String entetesSignes = "host;x-amz-content-sha256;x-amz-date";
+        String requeteCanonique = methode + "\n"
+                + chemin + "\n"
+                + "\n"
+                + "host:" + hote + "\n"
+                + "x-amz-content-sha256:" + PAYLOAD_NON_SIGNE + "\n"
+                + "x-amz-date:" + dateHeure + "\n"
+                + "\n"
+                + entetesSignes + "\n"
+                + PAYLOAD_NON_SIGNE;
+        String portee = date + "/" + region + "/s3/aws4_request";
+        String aSigner = ALGORITHME + "\n" + dateHeure + "\n" + portee + "\n"
+                + HexFormat.of().formatHex(MediaFileService.sha256().digest(requeteCanonique.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] cleSignature = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        cleSignature = hmac(cleSignature, region);
+        cleSignature = hmac(cleSignature, "s3");
+        cleSignature = hmac(cleSignature, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(cleSignature, aSigner));
+
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(5))
+                .header("x-amz-date", dateHeure)
+                .header("x-amz-content-sha256", PAYLOAD_NON_SIGNE)
+                .header("Authorization", ALGORITHME + " Credential=" + accessKey + "/" + portee
+                        + ", SignedHeaders=" + entetesSignes + ", Signature=" + signature);
+    }
+
+    private <T> HttpResponse<T> envoyer(HttpRequest requete, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(requete, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Requête S3 interrompue", e);
+        }
+    }
+
+    private void verifier(int statut, String methode, String url) throws IOException {
+        if (statut / 100 != 2) {
+            throw new IOException(methode + " " + url + " : HTTP " + statut);
+        }
+    }
+
+    // Encodage URI de S3 : tout sauf A-Z a-z 0-9 - _ . ~
+    private static String encoder(String segment) {
+        return URLEncoder.encode(segment, StandardCharsets.UTF_8)
+                .replace("+", "%20")
+                .replace("*", "%2A")
+                .replace("%7E", "~");
+    }
+
+    private static byte[] hmac(byte[] cle, String donnees) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(cle, "HmacSHA256"));
+            return mac.doFinal(donnees.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.back_gestion_Stage.Services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Même répertoire que LocalStorageProvider, mais réparti sur deux niveaux de
+ * sous-répertoires tirés du nom (ab/cd/abcd….png) : au plus 256 entrées par niveau,
+ * au lieu de centaines de milliers de fichiers dans un seul répertoire.
+ */
+@Component
+public class ShardedLocalStorageProvider extends LocalStorageProvider {
+
+    public static final String NOM = "local-sharded";
+
+    private static final List<String> PREFIXES_VARIANTES =
+            List.of(ImageDerivativeService.PREFIXE_THUMBNAIL, ImageDerivativeService.PREFIXE_MEDIUM);
+
+    public ShardedLocalStorageProvider(@Value("${app.upload.dir:uploads/}") String repertoire) {
+        super(repertoire);
+    }
+
+    @Override
+    public String getNom() {
+        return NOM;
+    }
+
+    // Les variantes (thumb_, medium_) sont réparties comme leur original : même répertoire
+    @Override
+    public String urlPour(String nomFichier) {
+        String cle = nomFichier;
+        for (String prefixe : PREFIXES_VARIANTES) {
+            if (cle.startsWith(prefixe)) {
+                cle = cle.substring(prefixe.length());
+                break;
+            }
+        }
+        if (cle.length() < 4) {
+            return super.urlPour(nomFichier);
+        }
+        return PREFIXE_URL + cle.substring(0, 2) + "/" + cle.substring(2, 4) + "/" + nomFichier;
+    }
+
+    // /uploads/nom.ext (disposition à plat) ; null si l'URL est déjà répartie ou hors du répertoire
+    public String urlRepartie(String urlPlate) {
+        if (!gere(urlPlate) || urlPlate.indexOf('/', PREFIXE_URL.length()) != -1) {
+            return null;
+        }
+        return urlPour(urlPlate.substring(PREFIXE_URL.length()));
+    }
+}
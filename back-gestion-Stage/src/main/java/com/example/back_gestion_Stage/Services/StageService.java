@@ -5,16 +5,20 @@ import com.example.back_gestion_Stage.Entities.Stagiaire;
 import com.example.back_gestion_Stage.Entities.Encadreur;
 import com.example.back_gestion_Stage.Entities.SuperieurHierarchique;
 import com.example.back_gestion_Stage.DTOs.StageDTO;
+import com.example.back_gestion_Stage.DTOs.StageAffectationDTO;
 import com.example.back_gestion_Stage.Repositories.StageRepository;
 import com.example.back_gestion_Stage.Repositories.StagiaireRepository;
-import com.example.back_gestion_Stage.Repositories.EncadreurRepository;
-import com.example.back_gestion_Stage.Repositories.SuperieurHierarchiqueRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,10 +32,10 @@ public class StageService extends BaseService<Stage, StageDTO> {
     private StagiaireRepository stagiaireRepository;
 
     @Autowired
-    private EncadreurRepository encadreurRepository;
+    private EncadreurService encadreurService;
 
     @Autowired
-    private SuperieurHierarchiqueRepository superieurHierarchiqueRepository;
+    private SuperieurHierarchiqueService superieurHierarchiqueService;
 
     @Override
     protected StageRepository getRepository() {
@@ -82,21 +86,25 @@ public class StageService extends BaseService<Stage, StageDTO> {
         entity.setStatutStage(dto.getStatutStage());
         
         if (dto.getEncadreurDocumentId() != null) {
-            encadreurRepository.findByDocumentId(dto.getEncadreurDocumentId())
+            encadreurService.findReferenceByDocumentId(dto.getEncadreurDocumentId())
                 .ifPresent(entity::setEncadreur);
         }
         
         if (dto.getSuperieurHierarchiqueDocumentId() != null) {
-            superieurHierarchiqueRepository.findByDocumentId(dto.getSuperieurHierarchiqueDocumentId())
+            superieurHierarchiqueService.findReferenceByDocumentId(dto.getSuperieurHierarchiqueDocumentId())
                 .ifPresent(entity::setSuperieurHierarchique);
         }
         
         if (dto.getStagiairesDocumentIds() != null) {
-            List<Stagiaire> stagiaires = dto.getStagiairesDocumentIds().stream()
-                .map(stagiaireDocId -> stagiaireRepository.findByDocumentId(stagiaireDocId).orElse(null))
-                .filter(stagiaire -> stagiaire != null)
-                .collect(Collectors.toList());
-            entity.setStagiaires(stagiaires);
+            Map<String, Stagiaire> trouves = findStagiairesByDocumentIds(dto.getStagiairesDocumentIds());
+            List<String> introuvables = documentIdsIntrouvables(dto.getStagiairesDocumentIds(), trouves);
+            if (!introuvables.isEmpty()) {
+                throw new DocumentIdsIntrouvablesException("Stagiaire", introuvables);
+            }
+            entity.setStagiaires(dto.getStagiairesDocumentIds().stream()
+                .distinct()
+                .map(trouves::get)
+                .collect(Collectors.toList()));
         }
         
         return entity;
@@ -168,6 +176,49 @@ public class StageService extends BaseService<Stage, StageDTO> {
         throw new RuntimeException("Stage ou Stagiaire non trouvé");
     }
 
+    /**
+     * Affecte plusieurs stagiaires à un stage en une seule requête de résolution.
+     * Les documentIds inconnus sont renvoyés dans la réponse au lieu d'être ignorés,
+     * les stagiaires déjà affectés ne sont pas dupliqués.
+     */
+    @Transactional
+    public StageAffectationDTO addStagiairesToStage(String stageDocumentId, List<String> stagiairesDocumentIds) {
+        Stage stage = stageRepository.findByDocumentId(stageDocumentId)
+            .orElseThrow(() -> new RuntimeException("Stage non trouvé"));
+
+        Map<String, Stagiaire> trouves = findStagiairesByDocumentIds(stagiairesDocumentIds);
+        Set<String> dejaAffectes = stage.getStagiaires().stream()
+            .map(Stagiaire::getDocumentId)
+            .collect(Collectors.toSet());
+
+        stagiairesDocumentIds.stream()
+            .distinct()
+            .filter(trouves::containsKey)
+            .filter(documentId -> !dejaAffectes.contains(documentId))
+            .forEach(documentId -> stage.addStagiaire(trouves.get(documentId)));
+
+        StageAffectationDTO affectation = new StageAffectationDTO();
+        affectation.setStage(convertToDto(stageRepository.save(stage)));
+        affectation.setDocumentIdsIntrouvables(documentIdsIntrouvables(stagiairesDocumentIds, trouves));
+        return affectation;
+    }
+
+    private Map<String, Stagiaire> findStagiairesByDocumentIds(Collection<String> documentIds) {
+        Set<String> uniques = new LinkedHashSet<>(documentIds);
+        if (uniques.isEmpty()) {
+            return Map.of();
+        }
+        return stagiaireRepository.findAllByDocumentIdIn(uniques).stream()
+            .collect(Collectors.toMap(Stagiaire::getDocumentId, Function.identity()));
+    }
+
+    private List<String> documentIdsIntrouvables(Collection<String> demandes, Map<String, ?> trouves) {
+        return demandes.stream()
+            .distinct()
+            .filter(documentId -> !trouves.containsKey(documentId))
+            .collect(Collectors.toList());
+    }
+
     @Transactional
     public StageDTO removeStagiaireFromStage(String stageDocumentId, String stagiaireDocumentId) {
         Optional<Stage> stageOpt = stageRepository.findByDocumentId(stageDocumentId);
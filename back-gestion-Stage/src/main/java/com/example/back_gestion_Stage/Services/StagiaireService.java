@@ -1,16 +1,19 @@
 package com.example.back_gestion_Stage.Services;
 
+import com.example.back_gestion_Stage.Entities.Stage;
 import com.example.back_gestion_Stage.Entities.Stagiaire;
 import com.example.back_gestion_Stage.Entities.Encadreur;
 import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
 import com.example.back_gestion_Stage.DTOs.StagiaireDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
+import com.example.back_gestion_Stage.Repositories.StagiaireListView;
 import com.example.back_gestion_Stage.Repositories.StagiaireRepository;
-import com.example.back_gestion_Stage.Repositories.EncadreurRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,7 +26,10 @@ public class StagiaireService extends BaseService<Stagiaire, StagiaireDTO> {
     private StagiaireRepository stagiaireRepository;
 
     @Autowired
-    private EncadreurRepository encadreurRepository;
+    private ExistenceFilterService existenceFilterService;
+
+    @Autowired
+    private EncadreurService encadreurService;
 
     @Autowired
     private CompteUtilisateurService compteUtilisateurService;
@@ -64,6 +70,38 @@ public class StagiaireService extends BaseService<Stagiaire, StagiaireDTO> {
         return dto;
     }
 
+    // Conversion depuis la projection de liste (relations déjà résolues en SQL)
+    private StagiaireDTO convertToDto(StagiaireListView view) {
+        StagiaireDTO dto = new StagiaireDTO();
+        dto.setId(view.getId());
+        dto.setDocumentId(view.getDocumentId());
+        dto.setCreatedAt(view.getCreatedAt());
+        dto.setUpdatedAt(view.getUpdatedAt());
+        dto.setNom(view.getNom());
+        dto.setPrenom(view.getPrenom());
+        dto.setEmail(view.getEmail());
+        dto.setTelephone(view.getTelephone());
+        dto.setCin(view.getCin());
+        dto.setEcole(view.getEcole());
+        dto.setFiliere(view.getFiliere());
+        dto.setNiveauEtude(view.getNiveauEtude());
+        dto.setDateNaissance(view.getDateNaissance());
+        dto.setAdresse(view.getAdresse());
+        dto.setStatut(view.getStatut());
+        dto.setEncadreurDocumentId(view.getEncadreurDocumentId());
+        dto.setPhotoUrl(view.getPhotoUrl());
+        dto.setThumbnailUrl(view.getThumbnailUrl());
+        dto.setMediumPhotoUrl(view.getMediumPhotoUrl());
+        dto.setHasActiveStage(view.getHasActiveStage());
+        return dto;
+    }
+
+    private List<StagiaireDTO> convertViewsToDto(List<StagiaireListView> views) {
+        return views.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
     @Override
     protected Stagiaire convertToEntity(StagiaireDTO dto) {
         Stagiaire entity = new Stagiaire();
@@ -82,7 +120,7 @@ public class StagiaireService extends BaseService<Stagiaire, StagiaireDTO> {
         entity.setStatut(dto.getStatut());
         
         if (dto.getEncadreurDocumentId() != null) {
-            encadreurRepository.findByDocumentId(dto.getEncadreurDocumentId())
+            encadreurService.findReferenceByDocumentId(dto.getEncadreurDocumentId())
                 .ifPresent(entity::setEncadreur);
         }
         
@@ -107,7 +145,7 @@ public class StagiaireService extends BaseService<Stagiaire, StagiaireDTO> {
             // MISE À JOUR DE L'ENCADREUR
         if (dto.getEncadreurDocumentId() != null) {
             // Si un nouveau documentId d'encadreur est fourni, on met à jour la relation
-            encadreurRepository.findByDocumentId(dto.getEncadreurDocumentId())
+            encadreurService.findReferenceByDocumentId(dto.getEncadreurDocumentId())
                 .ifPresent(entity::setEncadreur);
         } else if (dto.getEncadreurDocumentId() == null && dto.getId() != null) {
             // Si encadreurDocumentId est explicitement null, on supprime la relation
@@ -119,12 +157,41 @@ public class StagiaireService extends BaseService<Stagiaire, StagiaireDTO> {
         // Ne pas mettre à jour : id, documentId, createdAt, updatedAt, photo, encadreur
     }
 
+    @Override
+    public List<StagiaireDTO> findAll() {
+        return convertViewsToDto(stagiaireRepository.findAllListViews(Stage.StatutStage.EN_COURS, LocalDate.now()));
+    }
+
     // Méthodes spécifiques avec filtrage par statut
     public List<StagiaireDTO> findAllActifs() {
-        return stagiaireRepository.findAll().stream()
-                .filter(stagiaire -> stagiaire.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return findByStatut(StatutEntite.ACTIF);
+    }
+
+    // Pages par curseur servies par la projection : nombre de requêtes fixe quelle que soit la taille de page
+    public CursorPage<StagiaireDTO> findActifsPage(String cursor, int limit) {
+        LocalDate aujourdhui = LocalDate.now();
+        return findPage(cursor, limit,
+                pageable -> stagiaireRepository.findListViewsPageStartByStatut(StatutEntite.ACTIF,
+                        Stage.StatutStage.EN_COURS, aujourdhui, pageable),
+                (position, pageable) -> stagiaireRepository.findListViewsPageAfterByStatut(StatutEntite.ACTIF,
+                        position.createdAt(), position.id(), Stage.StatutStage.EN_COURS, aujourdhui, pageable),
+                StagiaireService::position,
+                this::convertViewsToDto);
+    }
+
+    @Override
+    public CursorPage<StagiaireDTO> findPage(String cursor, int limit) {
+        LocalDate aujourdhui = LocalDate.now();
+        return findPage(cursor, limit,
+                pageable -> stagiaireRepository.findListViewsPageStart(Stage.StatutStage.EN_COURS, aujourdhui, pageable),
+                (position, pageable) -> stagiaireRepository.findListViewsPageAfter(position.createdAt(), position.id(),
+                        Stage.StatutStage.EN_COURS, aujourdhui, pageable),
+                StagiaireService::position,
+                this::convertViewsToDto);
+    }
+
+    private static KeysetCursor position(StagiaireListView view) {
+        return new KeysetCursor(view.getCreatedAt(), view.getId());
     }
 
     public Optional<StagiaireDTO> findByEmail(String email) {
@@ -134,23 +201,18 @@ public class StagiaireService extends BaseService<Stagiaire, StagiaireDTO> {
     }
 
     public List<StagiaireDTO> findByEncadreur(String encadreurDocumentId) {
-        return stagiaireRepository.findByEncadreurDocumentId(encadreurDocumentId)
-                .stream()
-                .filter(stagiaire -> stagiaire.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertViewsToDto(stagiaireRepository.findListViewsByEncadreurAndStatut(
+                encadreurDocumentId, StatutEntite.ACTIF, Stage.StatutStage.EN_COURS, LocalDate.now()));
     }
 
     public boolean existsByEmail(String email) {
-        return stagiaireRepository.findByEmail(email)
-                .map(stagiaire -> stagiaire.getStatut() == StatutEntite.ACTIF)
-                .orElse(false);
+        return existenceFilterService.existe(Stagiaire.class, "email", email,
+                () -> stagiaireRepository.existsByEmailAndStatut(email, StatutEntite.ACTIF));
     }
 
     public boolean existsByCin(String cin) {
-        return stagiaireRepository.findByCin(cin)
-                .map(stagiaire -> stagiaire.getStatut() == StatutEntite.ACTIF)
-                .orElse(false);
+        return existenceFilterService.existe(Stagiaire.class, "cin", cin,
+                () -> stagiaireRepository.existsByCinAndStatut(cin, StatutEntite.ACTIF));
     }
 
     // Méthodes de gestion du statut
@@ -193,35 +255,20 @@ public class StagiaireService extends BaseService<Stagiaire, StagiaireDTO> {
     }
 
     public List<StagiaireDTO> findByStatut(StatutEntite statut) {
-        return stagiaireRepository.findAll().stream()
-                .filter(stagiaire -> stagiaire.getStatut() == statut)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertViewsToDto(stagiaireRepository.findListViewsByStatut(statut, Stage.StatutStage.EN_COURS, LocalDate.now()));
     }
 
     // Autres méthodes inchangées
     public List<StagiaireDTO> findByEcole(String ecole) {
-        return stagiaireRepository.findByEcole(ecole)
-                .stream()
-                .filter(stagiaire -> stagiaire.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(stagiaireRepository.findByEcoleAndStatut(ecole, StatutEntite.ACTIF));
     }
 
     public List<StagiaireDTO> findByFiliere(String filiere) {
-        return stagiaireRepository.findByFiliere(filiere)
-                .stream()
-                .filter(stagiaire -> stagiaire.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(stagiaireRepository.findByFiliereAndStatut(filiere, StatutEntite.ACTIF));
     }
 
     public List<StagiaireDTO> findAllWithEncadreur() {
-        return stagiaireRepository.findAllWithEncadreur()
-                .stream()
-                .filter(stagiaire -> stagiaire.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(stagiaireRepository.findAllWithEncadreurByStatut(StatutEntite.ACTIF));
     }
 
     @Override
@@ -0,0 +1,41 @@
+package com.example.back_gestion_Stage.Services;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Emplacement de stockage des fichiers média. Le nom du fournisseur est enregistré
+ * dans MediaFile.provider : chaque fichier reste lu et supprimé par le fournisseur
+ * qui l'a écrit, même si le fournisseur par défaut change.
+ */
+public interface StorageProvider {
+
+    // Valeur stockée dans MediaFile.provider
+    String getNom();
+
+    // Disposition des fichiers : URL sous laquelle sera rangé un nouveau contenu
+    String urlPour(String nomFichier);
+
+    // true si l'URL désigne un emplacement de ce fournisseur
+    boolean gere(String url);
+
+    // Range le fichier local source à l'URL donnée ; source est consommé
+    void ecrire(Path source, String url, String contentType) throws IOException;
+
+    InputStream ouvrir(String url) throws IOException;
+
+    // Vide si le contenu n'est pas servi par l'application (stockage objet : redirection)
+    Optional<Resource> charger(String url);
+
+    void supprimer(String url) throws IOException;
+
+    default String stocker(Path source, String nomFichier, String contentType) throws IOException {
+        String url = urlPour(nomFichier);
+        ecrire(source, url, contentType);
+        return url;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.back_gestion_Stage.Services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fournisseurs de stockage disponibles, indexés par nom.
+ * app.storage.provider désigne celui qui reçoit les nouveaux contenus.
+ */
+@Component
+public class StorageProviderRegistry {
+
+    private final Map<String, StorageProvider> fournisseurs = new LinkedHashMap<>();
+    private final StorageProvider parDefaut;
+
+    public StorageProviderRegistry(List<StorageProvider> providers,
+                                   @Value("${app.storage.provider:local-sharded}") String nomParDefaut) {
+        for (StorageProvider provider : providers) {
+            fournisseurs.put(provider.getNom(), provider);
+        }
+        this.parDefaut = fournisseurs.get(nomParDefaut);
+        if (parDefaut == null) {
+            throw new IllegalStateException("Fournisseur de stockage inconnu ou non configuré : " + nomParDefaut
+                    + " (disponibles : " + fournisseurs.keySet() + ")");
+        }
+    }
+
+    public StorageProvider parDefaut() {
+        return parDefaut;
+    }
+
+    // Fournisseur enregistré sur le fichier ; les fichiers sans provider sont locaux
+    public StorageProvider get(String nom) {
+        StorageProvider provider = fournisseurs.get(nom != null ? nom : LocalStorageProvider.NOM);
+        if (provider == null) {
+            throw new IllegalStateException("Fournisseur de stockage non configuré : " + nom);
+        }
+        return provider;
+    }
+
+    // Pour les URLs servies sans MediaFile sous la main (UploadController)
+    public Optional<StorageProvider> pourUrl(String url) {
+        return fournisseurs.values().stream().filter(provider -> provider.gere(url)).findFirst();
+    }
+}
@@ -1,16 +1,19 @@
 package com.example.back_gestion_Stage.Services;
 
+import com.example.back_gestion_Stage.Config.CacheConfig;
 import com.example.back_gestion_Stage.Entities.SuperieurHierarchique;
 import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
 import com.example.back_gestion_Stage.DTOs.SuperieurHierarchiqueDTO;
+import com.example.back_gestion_Stage.DTOs.CursorPage;
 import com.example.back_gestion_Stage.Entities.StatutEntite;
 import com.example.back_gestion_Stage.Repositories.SuperieurHierarchiqueRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class SuperieurHierarchiqueService extends BaseService<SuperieurHierarchique, SuperieurHierarchiqueDTO> {
@@ -18,6 +21,9 @@ public class SuperieurHierarchiqueService extends BaseService<SuperieurHierarchi
     @Autowired
     private SuperieurHierarchiqueRepository superieurHierarchiqueRepository;
 
+    @Autowired
+    private ExistenceFilterService existenceFilterService;
+
     @Autowired
     private CompteUtilisateurService compteUtilisateurService;
 
@@ -82,12 +88,31 @@ public class SuperieurHierarchiqueService extends BaseService<SuperieurHierarchi
 
     // Méthodes spécifiques avec filtrage par statut
     public List<SuperieurHierarchiqueDTO> findAllActifs() {
-        return superieurHierarchiqueRepository.findAll().stream()
-                .filter(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(superieurHierarchiqueRepository.findByStatut(StatutEntite.ACTIF));
     }
 
+    public CursorPage<SuperieurHierarchiqueDTO> findActifsPage(String cursor, int limit) {
+        return findPageByStatut(superieurHierarchiqueRepository, StatutEntite.ACTIF, cursor, limit);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.SUPERIEURS, CacheConfig.ENCADREURS}, allEntries = true)
+    public SuperieurHierarchiqueDTO save(SuperieurHierarchiqueDTO dto) {
+        return super.save(dto);
+    }
+
+    // Référence servant à renseigner les relations (stages, encadreurs), construite comme
+    // EncadreurService.findReferenceByDocumentId : id en cache, seuls id et documentId renseignés
+    public Optional<SuperieurHierarchique> findReferenceByDocumentId(String documentId) {
+        return superieurHierarchiqueRepository.findIdByDocumentId(documentId).map(id -> {
+            SuperieurHierarchique reference = new SuperieurHierarchique();
+            reference.setId(id);
+            reference.setDocumentId(documentId);
+            return reference;
+        });
+    }
+
+    @Cacheable(cacheNames = CacheConfig.SUPERIEURS, key = "'email:' + #email")
     public Optional<SuperieurHierarchiqueDTO> findByEmail(String email) {
         return superieurHierarchiqueRepository.findByEmail(email)
                 .filter(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
@@ -114,19 +139,18 @@ public class SuperieurHierarchiqueService extends BaseService<SuperieurHierarchi
 
      
     public boolean existsByEmail(String email) {
-        return superieurHierarchiqueRepository.findByEmail(email)
-                .map(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
-                .orElse(false);
+        return existenceFilterService.existe(SuperieurHierarchique.class, "email", email,
+                () -> superieurHierarchiqueRepository.existsByEmailAndStatut(email, StatutEntite.ACTIF));
     }
 
     public boolean existsByCin(String cin) {
-        return superieurHierarchiqueRepository.findByCin(cin)
-                .map(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
-                .orElse(false);
+        return existenceFilterService.existe(SuperieurHierarchique.class, "cin", cin,
+                () -> superieurHierarchiqueRepository.existsByCinAndStatut(cin, StatutEntite.ACTIF));
     }
     
 
     // Méthodes de gestion du statut
+    @CacheEvict(cacheNames = {CacheConfig.SUPERIEURS, CacheConfig.ENCADREURS}, allEntries = true)
     public SuperieurHierarchiqueDTO desactiver(String documentId) {
         Optional<SuperieurHierarchique> superieurOpt = superieurHierarchiqueRepository.findByDocumentId(documentId);
         if (superieurOpt.isPresent()) {
@@ -146,6 +170,7 @@ public class SuperieurHierarchiqueService extends BaseService<SuperieurHierarchi
         return null;
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.SUPERIEURS, CacheConfig.ENCADREURS}, allEntries = true)
     public SuperieurHierarchiqueDTO activer(String documentId) {
         Optional<SuperieurHierarchique> superieurOpt = superieurHierarchiqueRepository.findByDocumentId(documentId);
         if (superieurOpt.isPresent()) {
@@ -166,29 +191,25 @@ public class SuperieurHierarchiqueService extends BaseService<SuperieurHierarchi
     }
 
     public List<SuperieurHierarchiqueDTO> findByStatut(StatutEntite statut) {
-        return superieurHierarchiqueRepository.findAll().stream()
-                .filter(superieur -> superieur.getStatut() == statut)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(superieurHierarchiqueRepository.findByStatut(statut));
     }
 
     // Autres méthodes inchangées
     public List<SuperieurHierarchiqueDTO> findByDepartement(String departement) {
-        return superieurHierarchiqueRepository.findByDepartement(departement)
-                .stream()
-                .filter(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(superieurHierarchiqueRepository.findByDepartementAndStatut(departement, StatutEntite.ACTIF));
     }
 
     public List<SuperieurHierarchiqueDTO> findAllWithPhoto() {
-        return superieurHierarchiqueRepository.findAllWithPhoto()
-                .stream()
-                .filter(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(superieurHierarchiqueRepository.findAllWithPhotoByStatut(StatutEntite.ACTIF));
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.SUPERIEURS, CacheConfig.ENCADREURS}, allEntries = true)
+    @Override
+    public void deleteById(Long id) {
+        super.deleteById(id);
+    }
+
+    @CacheEvict(cacheNames = {CacheConfig.SUPERIEURS, CacheConfig.ENCADREURS}, allEntries = true)
     @Override
     public void deleteByDocumentId(String documentId) {
         superieurHierarchiqueRepository.findByDocumentId(documentId)
@@ -196,16 +217,10 @@ public class SuperieurHierarchiqueService extends BaseService<SuperieurHierarchi
     }
 
     public long countByDepartement(String departement) {
-        return superieurHierarchiqueRepository.findByDepartement(departement)
-                .stream()
-                .filter(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
-                .count();
+        return superieurHierarchiqueRepository.countByDepartementAndStatut(departement, StatutEntite.ACTIF);
     }
 
     public long countTotal() {
-        return superieurHierarchiqueRepository.findAll()
-                .stream()
-                .filter(superieur -> superieur.getStatut() == StatutEntite.ACTIF)
-                .count();
+        return superieurHierarchiqueRepository.countByStatut(StatutEntite.ACTIF);
     }
 }
\ No newline at end of file
@@ -98,12 +98,6 @@ public class TacheService extends BaseService<Tache, TacheDTO> {
         return createTacheWithRelations(dto);
     }
 
-    @Override
-    public Optional<TacheDTO> findByDocumentId(String documentId) {
-        return tacheRepository.findByDocumentId(documentId)
-                .map(this::convertToDto);
-    }
-
     public List<TacheDTO> findByStage(String stageDocumentId) {
         return tacheRepository.findByStageDocumentId(stageDocumentId)
                 .stream()
@@ -0,0 +1,124 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.DTOs.CompteUtilisateurDTO;
+import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Jetons de session signés (format JWT, HMAC-SHA256) portant le documentId du compte,
+ * son TypeCompte et l'entityDocumentId. La validation ne fait aucun accès à la base :
+ * un compte désactivé garde un jeton valide jusqu'à son expiration (app.auth.token.ttl).
+ */
+@Slf4j
+@Service
+public class TokenService {
+
+    private static final Base64.Encoder ENCODEUR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODEUR = Base64.getUrlDecoder();
+    // En-tête fixe : un jeton annonçant un autre algorithme est rejeté tel quel
+    private static final String ENTETE = ENCODEUR.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec cle;
+    private final Duration duree;
+
+    public TokenService(ObjectMapper objectMapper,
+                        @Value("${app.auth.token.secret:}") String secret,
+                        @Value("${app.auth.token.ttl:8h}") Duration duree) {
+        this.objectMapper = objectMapper;
+        this.duree = duree;
+        byte[] octets;
+        if (secret.isBlank()) {
+            // Sans secret configuré, les jetons ne survivent pas à un redémarrage et ne sont pas partagés entre instances
+            log.warn("app.auth.token.secret absent : clé de signature aléatoire générée pour ce processus");
+            octets = new byte[32];
+            new SecureRandom().nextBytes(octets);
+        } else {
+            octets = Base64.getDecoder().decode(secret);
+            if (octets.length < 32) {
+                throw new IllegalStateException("app.auth.token.secret doit faire au moins 256 bits (base64)");
+            }
+        }
+        this.cle = new SecretKeySpec(octets, "HmacSHA256");
+    }
+
+    public String emettre(CompteUtilisateurDTO compte, Instant expiration) {
+        ObjectNode charge = objectMapper.createObjectNode();
+        charge.put("sub", compte.getDocumentId());
+        charge.put("email", compte.getEmail());
+        charge.put("typ", compte.getTypeCompte() != null ? compte.getTypeCompte().name() : null);
+        charge.put("ent", compte.getEntityDocumentId());
+        charge.put("iat", Instant.now().getEpochSecond());
+        charge.put("exp", expiration.getEpochSecond());
+        try {
+            String contenu = ENTETE + "." + ENCODEUR.encodeToString(objectMapper.writeValueAsBytes(charge));
+            return contenu + "." + ENCODEUR.encodeToString(signer(contenu));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Jeton non sérialisable", e);
+        }
+    }
+
+    public Instant expirationPourMaintenant() {
+        return Instant.now().plus(duree);
+    }
+
+    // Vide si le jeton est mal formé, mal signé ou expiré
+    public Optional<CompteAuthentifie> valider(String jeton) {
+        if (jeton == null) {
+            return Optional.empty();
+        }
+        int premier = jeton.indexOf('.');
+        int dernier = jeton.lastIndexOf('.');
+        if (premier <= 0 || dernier == premier || !jeton.substring(0, premier).equals(ENTETE)) {
+            return Optional.empty();
+        }
+        try {
+            byte[] attendue = signer(jeton.substring(0, dernier));
+            if (!MessageDigest.isEqual(attendue, DECODEUR.decode(jeton.substring(dernier + 1)))) {
+                return Optional.empty();
+            }
+            JsonNode charge = objectMapper.readTree(DECODEUR.decode(jeton.substring(premier + 1, dernier)));
+            Instant expiration = Instant.ofEpochSecond(charge.path("exp").asLong());
+            if (!expiration.isAfter(Instant.now()) || !charge.hasNonNull("sub")) {
+                return Optional.empty();
+            }
+            String type = charge.path("typ").asText(null);
+            return Optional.of(new CompteAuthentifie(
+                    charge.get("sub").asText(),
+                    charge.path("email").asText(null),
+                    type != null ? CompteUtilisateur.TypeCompte.valueOf(type) : null,
+                    charge.path("ent").asText(null),
+                    expiration));
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] signer(String contenu) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cle);
+            return mac.doFinal(contenu.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible", e);
+        }
+    }
+}
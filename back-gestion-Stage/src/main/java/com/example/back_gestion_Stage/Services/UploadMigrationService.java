@@ -0,0 +1,241 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Entities.MediaBlob;
+import com.example.back_gestion_Stage.Entities.MediaFile;
+import com.example.back_gestion_Stage.Repositories.MediaBlobRepository;
+import com.example.back_gestion_Stage.Repositories.MediaFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Migration en ligne des fichiers stockés à plat (uploads/nom.ext) vers la disposition
+ * répartie (uploads/ab/cd/nom.ext), par lots d'id croissants, chaque lot dans sa transaction.
+ * Pour chaque contenu : lien physique vers le nouvel emplacement, mise à jour des URLs de
+ * tous les MediaFile qui le partagent et du MediaBlob, puis suppression de l'ancien nom
+ * après commit. Les deux URLs restent valides pendant toute l'opération, et les anciennes
+ * continuent d'être servies ensuite (MediaFileService.loadAsResource).
+ */
+@Slf4j
+@Service
+public class UploadMigrationService {
+
+    @Autowired
+    private MediaFileRepository mediaFileRepository;
+
+    @Autowired
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardedLocalStorageProvider shardedStorageProvider;
+
+    @Value("${app.storage.migration.batch-size:200}")
+    private int tailleLotParDefaut;
+
+    // Pause entre deux lots pour limiter la charge disque pendant l'activité normale
+    @Value("${app.storage.migration.pause-ms:100}")
+    private long pauseEntreLots;
+
+    private final AtomicBoolean enCours = new AtomicBoolean();
+    private final AtomicLong mediasMigres = new AtomicLong();
+    private final AtomicLong fichiersDeplaces = new AtomicLong();
+    private final AtomicLong erreurs = new AtomicLong();
+
+    public record Progression(boolean enCours, long mediasMigres, long fichiersDeplaces, long erreurs) {
+    }
+
+    /**
+     * Lance la migration en arrière-plan ; false si une migration tourne déjà.
+     */
+    public boolean demarrer(Integer tailleLot) {
+        if (tailleLot != null && (tailleLot <= 0 || tailleLot > BaseService.MAX_PAGE_SIZE * 5)) {
+            throw new IllegalArgumentException("La taille de lot doit être comprise entre 1 et " + BaseService.MAX_PAGE_SIZE * 5);
+        }
+        if (!enCours.compareAndSet(false, true)) {
+            return false;
+        }
+        mediasMigres.set(0);
+        fichiersDeplaces.set(0);
+        erreurs.set(0);
+        int taille = tailleLot != null ? tailleLot : tailleLotParDefaut;
+        Thread thread = new Thread(() -> {
+            try {
+                migrer(taille);
+            } catch (RuntimeException e) {
+                log.error("Migration des uploads interrompue", e);
+            } finally {
+                enCours.set(false);
+            }
+        }, "migration-uploads");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Progression progression() {
+        return new Progression(enCours.get(), mediasMigres.get(), fichiersDeplaces.get(), erreurs.get());
+    }
+
+    void migrer(int tailleLot) {
+        long dernierId = 0;
+        List<Long> lot;
+        do {
+            long apres = dernierId;
+            List<Path> aSupprimer = new ArrayList<>();
+            lot = transactionTemplate.execute(status -> migrerLot(apres, tailleLot, aSupprimer));
+            // Anciens noms supprimés une fois les nouvelles URLs commitées
+            for (Path ancien : aSupprimer) {
+                try {
+                    Files.deleteIfExists(ancien);
+                } catch (IOException e) {
+                    log.warn("Ancien fichier non supprimé : {}", ancien, e);
+                }
+            }
+            if (lot != null && !lot.isEmpty()) {
+                dernierId = lot.get(lot.size() - 1);
+                pause();
+            }
+        } while (lot != null && lot.size() == tailleLot);
+        log.info("Migration des uploads terminée : {} médias, {} fichiers, {} erreurs",
+                mediasMigres.get(), fichiersDeplaces.get(), erreurs.get());
+    }
+
+    // Renvoie les ids parcourus (migrés ou non) pour avancer le curseur
+    private List<Long> migrerLot(long apres, int tailleLot, List<Path> aSupprimer) {
+        List<MediaFile> candidats = mediaFileRepository.findLotParProvider(
+                LocalStorageProvider.NOM, apres, PageRequest.of(0, tailleLot));
+        List<Long> ids = new ArrayList<>(candidats.size());
+        Set<String> contenusTraites = new HashSet<>();
+        for (MediaFile candidat : candidats) {
+            ids.add(candidat.getId());
+            if (candidat.getSha256() != null && !contenusTraites.add(candidat.getSha256())) {
+                continue;
+            }
+            try {
+                migrerContenu(candidat, aSupprimer);
+            } catch (IOException e) {
+                erreurs.incrementAndGet();
+                log.warn("Média {} non migré", candidat.getDocumentId(), e);
+            }
+        }
+        return ids;
+    }
+
+    // Un contenu partagé (même sha256) est migré d'un bloc, sous le verrou de son blob.
+    // Tous les fichiers sont placés avant de toucher aux entités : un fichier manquant laisse le groupe intact
+    private void migrerContenu(MediaFile candidat, List<Path> aSupprimer) throws IOException {
+        List<MediaFile> partages = List.of(candidat);
+        MediaBlob blob = null;
+        if (candidat.getSha256() != null) {
+            blob = mediaBlobRepository.findForUpdateBySha256(candidat.getSha256()).orElse(null);
+            partages = mediaFileRepository.findBySha256(candidat.getSha256());
+        }
+        partages = partages.stream().filter(mediaFile -> aMigrer(mediaFile.getProvider())).toList();
+        if (blob != null && !aMigrer(blob.getProvider())) {
+            blob = null;
+        }
+
+        Map<String, String> nouvellesUrls = new HashMap<>();
+        List<Path> anciens = new ArrayList<>();
+        for (MediaFile mediaFile : partages) {
+            for (String url : new String[] {mediaFile.getUrl(), mediaFile.getThumbnailUrl(), mediaFile.getMediumUrl()}) {
+                if (url != null && !nouvellesUrls.containsKey(url)) {
+                    nouvellesUrls.put(url, deplacer(url, anciens));
+                }
+            }
+        }
+        if (blob != null && !nouvellesUrls.containsKey(blob.getUrl())) {
+            nouvellesUrls.put(blob.getUrl(), deplacer(blob.getUrl(), anciens));
+        }
+
+        // Mises à jour ciblées, conditionnées par l'ancienne valeur : des dérivés enregistrés entre-temps
+        // ne sont pas écrasés, ils restent à leur URL à plat (toujours lisible) et ne sont pas supprimés
+        for (MediaFile mediaFile : partages) {
+            Long id = mediaFile.getId();
+            String url = mediaFile.getUrl();
+            int migre = mediaFileRepository.migrerUrl(id, url, nouvellesUrls.getOrDefault(url, url),
+                    ShardedLocalStorageProvider.NOM);
+            if (mediaFile.getThumbnailUrl() != null) {
+                mediaFileRepository.migrerThumbnailUrl(id, mediaFile.getThumbnailUrl(),
+                        nouvellesUrls.get(mediaFile.getThumbnailUrl()));
+            }
+            if (mediaFile.getMediumUrl() != null) {
+                mediaFileRepository.migrerMediumUrl(id, mediaFile.getMediumUrl(),
+                        nouvellesUrls.get(mediaFile.getMediumUrl()));
+            }
+            if (migre > 0) {
+                mediasMigres.incrementAndGet();
+            }
+        }
+        if (blob != null) {
+            blob.setUrl(nouvellesUrls.get(blob.getUrl()));
+            blob.setProvider(ShardedLocalStorageProvider.NOM);
+            mediaBlobRepository.save(blob);
+        }
+        aSupprimer.addAll(anciens);
+    }
+
+    private boolean aMigrer(String provider) {
+        return provider == null || LocalStorageProvider.NOM.equals(provider);
+    }
+
+    /**
+     * Rend le fichier disponible à l'URL répartie et renvoie cette URL.
+     * Lien physique (instantané, même inode) avec repli sur une copie ; rejouable après interruption.
+     */
+    private String deplacer(String urlPlate, List<Path> anciens) throws IOException {
+        String urlRepartie = shardedStorageProvider.urlRepartie(urlPlate);
+        if (urlRepartie == null) {
+            return urlPlate;
+        }
+        Path source = shardedStorageProvider.chemin(urlPlate).orElseThrow();
+        Path cible = shardedStorageProvider.chemin(urlRepartie).orElseThrow();
+        if (Files.exists(source)) {
+            Files.createDirectories(cible.getParent());
+            try {
+                Files.createLink(cible, source);
+                fichiersDeplaces.incrementAndGet();
+            } catch (FileAlreadyExistsException e) {
+                // Lot précédent interrompu après la création du lien
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(source, cible, StandardCopyOption.REPLACE_EXISTING);
+                fichiersDeplaces.incrementAndGet();
+            }
+            anciens.add(source);
+        } else if (!Files.exists(cible)) {
+            throw new IOException("Fichier introuvable : " + source);
+        }
+        return urlRepartie;
+    }
+
+    private void pause() {
+        if (pauseEntreLots <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseEntreLots);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
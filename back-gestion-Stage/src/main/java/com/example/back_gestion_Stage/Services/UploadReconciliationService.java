@@ -0,0 +1,346 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Entities.MediaFile;
+import com.example.back_gestion_Stage.Repositories.MediaBlobRepository;
+import com.example.back_gestion_Stage.Repositories.MediaFileRepository;
+import com.example.back_gestion_Stage.Repositories.PendingDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Réconciliation entre le répertoire d'upload et la base.
+ * 1. Parcours du répertoire (Files.walkFileTree) : chaque lot de fichiers est comparé aux URLs
+ *    référencées par MediaFile, MediaBlob et PendingDeletion ; les fichiers sans référence sont
+ *    des orphelins, supprimés via PendingDeletionService si app.media.reconciliation.delete-orphans.
+ * 2. Parcours des MediaFile stockés localement : les URLs sans fichier sont signalées (jamais supprimées).
+ * Le débit est plafonné (fichiers ou lignes par seconde) pour ne pas concurrencer le trafic normal,
+ * et les fichiers récents sont ignorés : un upload peut écrire le fichier avant de commiter sa ligne.
+ */
+@Slf4j
+@Service
+public class UploadReconciliationService {
+
+    private static final int EXEMPLES_MAX = 100;
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final String REPERTOIRE_SESSIONS = ".sessions";
+
+    @Autowired
+    private MediaFileRepository mediaFileRepository;
+
+    @Autowired
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Autowired
+    private PendingDeletionRepository pendingDeletionRepository;
+
+    @Autowired
+    private PendingDeletionService pendingDeletionService;
+
+    @Autowired
+    private MediaFileService mediaFileService;
+
+    @Autowired
+    private LocalStorageProvider localStorageProvider;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.media.reconciliation.batch-size:500}")
+    private int tailleLot;
+
+    @Value("${app.media.reconciliation.files-per-second:1000}")
+    private int debitMax;
+
+    @Value("${app.media.reconciliation.grace-period:1h}")
+    private Duration delaiDeGrace;
+
+    @Value("${app.media.reconciliation.delete-orphans:false}")
+    private boolean supprimerOrphelins;
+
+    private final AtomicBoolean enCours = new AtomicBoolean();
+    private final AtomicLong fichiersParcourus = new AtomicLong();
+    private final AtomicLong octetsParcourus = new AtomicLong();
+    private final AtomicLong fichiersOrphelins = new AtomicLong();
+    private final AtomicLong octetsOrphelins = new AtomicLong();
+    private final AtomicLong fichiersManquants = new AtomicLong();
+    private final List<String> exemplesOrphelins = new ArrayList<>();
+    private final List<String> exemplesManquants = new ArrayList<>();
+    private volatile LocalDateTime debut;
+    private volatile LocalDateTime fin;
+
+    private final Counter compteurParcourus;
+    private final Counter compteurOrphelins;
+    private final Counter compteurOctetsOrphelins;
+    private final Counter compteurManquants;
+
+    public record Rapport(boolean enCours, LocalDateTime debut, LocalDateTime fin,
+                          long fichiersParcourus, long octetsParcourus,
+                          long fichiersOrphelins, long octetsOrphelins, long fichiersManquants,
+                          boolean orphelinsSupprimes, List<String> exemplesOrphelins, List<String> exemplesManquants) {
+    }
+
+    public UploadReconciliationService(MeterRegistry meterRegistry) {
+        this.compteurParcourus = Counter.builder("media.reconciliation.files.scanned")
+                .description("Fichiers du répertoire d'upload examinés")
+                .register(meterRegistry);
+        this.compteurOrphelins = Counter.builder("media.reconciliation.orphans")
+                .description("Fichiers sans MediaFile ni MediaBlob")
+                .register(meterRegistry);
+        this.compteurOctetsOrphelins = Counter.builder("media.reconciliation.orphans.bytes")
+                .description("Taille cumulée des fichiers orphelins")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.compteurManquants = Counter.builder("media.reconciliation.missing")
+                .description("URLs de MediaFile dont le fichier est absent")
+                .register(meterRegistry);
+        Gauge.builder("media.reconciliation.progress.files", fichiersParcourus, AtomicLong::get)
+                .description("Fichiers examinés par la passe en cours ou la dernière passe")
+                .register(meterRegistry);
+        Gauge.builder("media.reconciliation.progress.bytes", octetsParcourus, AtomicLong::get)
+                .description("Octets examinés par la passe en cours ou la dernière passe")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("media.reconciliation.running", enCours, actif -> actif.get() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.media.reconciliation.cron:0 0 4 * * *}")
+    public void planifie() {
+        demarrer();
+    }
+
+    /**
+     * Lance une passe sur un thread dédié (le planificateur n'est pas bloqué) ;
+     * false si une passe est déjà en cours.
+     */
+    public boolean demarrer() {
+        if (!enCours.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                reconcilier();
+            } catch (RuntimeException | IOException e) {
+                log.error("Réconciliation des uploads interrompue", e);
+            } finally {
+                fin = LocalDateTime.now();
+                enCours.set(false);
+            }
+        }, "reconciliation-uploads");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Rapport rapport() {
+        synchronized (exemplesOrphelins) {
+            return new Rapport(enCours.get(), debut, fin, fichiersParcourus.get(), octetsParcourus.get(),
+                    fichiersOrphelins.get(), octetsOrphelins.get(), fichiersManquants.get(), supprimerOrphelins,
+                    List.copyOf(exemplesOrphelins), List.copyOf(exemplesManquants));
+        }
+    }
+
+    void reconcilier() throws IOException {
+        debut = LocalDateTime.now();
+        fin = null;
+        fichiersParcourus.set(0);
+        octetsParcourus.set(0);
+        fichiersOrphelins.set(0);
+        octetsOrphelins.set(0);
+        fichiersManquants.set(0);
+        synchronized (exemplesOrphelins) {
+            exemplesOrphelins.clear();
+            exemplesManquants.clear();
+        }
+        Limiteur limiteur = new Limiteur(debitMax);
+
+        Path racine = localStorageProvider.getRacine();
+        if (Files.isDirectory(racine)) {
+            parcourirFichiers(racine, limiteur);
+        }
+        verifierMediaFiles(limiteur);
+        log.info("Réconciliation des uploads : {} fichiers ({} octets), {} orphelins ({} octets), {} manquants",
+                fichiersParcourus.get(), octetsParcourus.get(), fichiersOrphelins.get(), octetsOrphelins.get(),
+                fichiersManquants.get());
+    }
+
+    private void parcourirFichiers(Path racine, Limiteur limiteur) throws IOException {
+        Instant limiteRecents = Instant.now().minus(delaiDeGrace);
+        Map<String, Long> lot = new LinkedHashMap<>();
+
+        Files.walkFileTree(racine, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path repertoire, BasicFileAttributes attributs) {
+                // Uploads par morceaux en cours : gérés par ChunkedUploadService
+                return REPERTOIRE_SESSIONS.equals(repertoire.getFileName().toString()) && !repertoire.equals(racine)
+                        ? FileVisitResult.SKIP_SUBTREE
+                        : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path fichier, BasicFileAttributes attributs) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (!attributs.isRegularFile() || fichier.getFileName().toString().endsWith(".part")
+                        || attributs.lastModifiedTime().toInstant().isAfter(limiteRecents)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String relatif = racine.relativize(fichier).toString().replace(fichier.getFileSystem().getSeparator(), "/");
+                lot.put(LocalStorageProvider.PREFIXE_URL + relatif, attributs.size());
+                fichiersParcourus.incrementAndGet();
+                octetsParcourus.addAndGet(attributs.size());
+                compteurParcourus.increment();
+                if (lot.size() >= tailleLot) {
+                    traiterLot(lot);
+                    limiteur.attendre(tailleLot);
+                    lot.clear();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path fichier, IOException e) {
+                log.warn("Fichier illisible pendant la réconciliation : {}", fichier, e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (!lot.isEmpty()) {
+            traiterLot(lot);
+        }
+    }
+
+    private void traiterLot(Map<String, Long> lot) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> referencees = new HashSet<>();
+            for (Object[] ligne : mediaFileRepository.findUrlsReferencees(lot.keySet())) {
+                for (Object url : ligne) {
+                    if (url != null) {
+                        referencees.add((String) url);
+                    }
+                }
+            }
+            referencees.addAll(mediaBlobRepository.findUrlsIn(lot.keySet()));
+            referencees.addAll(pendingDeletionRepository.findUrlsIn(lot.keySet()));
+
+            for (Map.Entry<String, Long> fichier : lot.entrySet()) {
+                String url = fichier.getKey();
+                if (referencees.contains(url)) {
+                    continue;
+                }
+                fichiersOrphelins.incrementAndGet();
+                octetsOrphelins.addAndGet(fichier.getValue());
+                compteurOrphelins.increment();
+                compteurOctetsOrphelins.increment(fichier.getValue());
+                ajouterExemple(exemplesOrphelins, url);
+                if (supprimerOrphelins) {
+                    pendingDeletionService.planifier(LocalStorageProvider.NOM, empreinte(url), List.of(url));
+                }
+            }
+        });
+    }
+
+    private void verifierMediaFiles(Limiteur limiteur) {
+        long dernierId = 0;
+        List<MediaFile> lot;
+        do {
+            lot = mediaFileRepository.findLotApres(dernierId, PageRequest.of(0, tailleLot));
+            for (MediaFile mediaFile : lot) {
+                if (!estLocal(mediaFile.getProvider())) {
+                    continue;
+                }
+                Set<String> urls = new HashSet<>();
+                urls.add(mediaFile.getUrl());
+                urls.add(mediaFile.getThumbnailUrl());
+                urls.add(mediaFile.getMediumUrl());
+                urls.remove(null);
+                for (String url : urls) {
+                    if (mediaFileService.loadAsResource(url).isEmpty()) {
+                        fichiersManquants.incrementAndGet();
+                        compteurManquants.increment();
+                        ajouterExemple(exemplesManquants, mediaFile.getDocumentId() + " " + url);
+                    }
+                }
+            }
+            if (!lot.isEmpty()) {
+                dernierId = lot.get(lot.size() - 1).getId();
+                limiteur.attendre(lot.size());
+            }
+        } while (lot.size() == tailleLot && !Thread.currentThread().isInterrupted());
+    }
+
+    private boolean estLocal(String provider) {
+        return provider == null || LocalStorageProvider.NOM.equals(provider) || ShardedLocalStorageProvider.NOM.equals(provider);
+    }
+
+    // Empreinte tirée d'un nom adressé par contenu (sha256.ext, thumb_sha256.ext) : un nouvel upload annule la suppression
+    private String empreinte(String url) {
+        String nom = url.substring(url.lastIndexOf('/') + 1);
+        nom = nom.substring(nom.indexOf('_') + 1);
+        int point = nom.indexOf('.');
+        String candidat = point == -1 ? nom : nom.substring(0, point);
+        return SHA256.matcher(candidat).matches() ? candidat : null;
+    }
+
+    private void ajouterExemple(List<String> exemples, String valeur) {
+        synchronized (exemplesOrphelins) {
+            if (exemples.size() < EXEMPLES_MAX) {
+                exemples.add(valeur);
+            }
+        }
+    }
+
+    // Plafond de débit : dort le temps nécessaire pour ne pas dépasser "parSeconde" éléments
+    private static final class Limiteur {
+        private final int parSeconde;
+        private final long depart = System.nanoTime();
+        private long traites;
+
+        Limiteur(int parSeconde) {
+            this.parSeconde = parSeconde;
+        }
+
+        void attendre(int elements) {
+            traites += elements;
+            if (parSeconde <= 0) {
+                return;
+            }
+            long attenduNanos = traites * 1_000_000_000L / parSeconde;
+            long ecouleNanos = System.nanoTime() - depart;
+            if (attenduNanos > ecouleNanos) {
+                try {
+                    Thread.sleep(Duration.ofNanos(attenduNanos - ecouleNanos));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.Repositories.*;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie que chaque service passe par l'index documentId et ne retombe jamais
+ * sur un findAll() suivi d'un filtre en mémoire.
+ */
+class DocumentIdLookupTest {
+
+    private record Cas(BaseService<?, ?> service, String champ, Class<? extends BaseRepository<?>> repository) {}
+
+    private static List<Cas> cas() {
+        return List.of(
+            new Cas(new AdminService(), "adminRepository", AdminRepository.class),
+            new Cas(new CompteUtilisateurService(), "compteUtilisateurRepository", CompteUtilisateurRepository.class),
+            new Cas(new EncadreurService(), "encadreurRepository", EncadreurRepository.class),
+            new Cas(new MediaFileService(), "mediaFileRepository", MediaFileRepository.class),
+            new Cas(new NotificationService(), "notificationRepository", NotificationRepository.class),
+            new Cas(new StageService(), "stageRepository", StageRepository.class),
+            new Cas(new StagiaireService(), "stagiaireRepository", StagiaireRepository.class),
+            new Cas(new SuperieurHierarchiqueService(), "superieurHierarchiqueRepository", SuperieurHierarchiqueRepository.class),
+            new Cas(new TacheService(), "tacheRepository", TacheRepository.class)
+        );
+    }
+
+    @TestFactory
+    Stream<DynamicTest> findByDocumentIdNeFaitPasDeScanComplet() {
+        return cas().stream().map(c -> DynamicTest.dynamicTest(c.service().getClass().getSimpleName(), () -> {
+            BaseRepository<?> repository = Mockito.mock(c.repository());
+            ReflectionTestUtils.setField(c.service(), c.champ(), repository);
+            if (ReflectionUtils.findField(c.service().getClass(), "transactionTemplate") != null) {
+                ReflectionTestUtils.setField(c.service(), "transactionTemplate",
+                        new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+            }
+
+            c.service().findByDocumentId("inconnu");
+            c.service().existsByDocumentId("inconnu");
+            c.service().deleteByDocumentId("inconnu");
+
+            assertAucunScanComplet(repository);
+        }));
+    }
+
+    private static void assertAucunScanComplet(Object repository) {
+        for (Invocation invocation : Mockito.mockingDetails(repository).getInvocations()) {
+            String methode = invocation.getMethod().getName();
+            assertTrue(!methode.equals("findAll") && !methode.equals("findAllById"),
+                    "Scan complet détecté : " + invocation);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bucket S3 simulé en mémoire : PUT / GET / DELETE sur /bucket/cle
+class S3StorageProviderTest {
+
+    private final Map<String, byte[]> objets = new ConcurrentHashMap<>();
+    private final List<String> autorisations = new CopyOnWriteArrayList<>();
+    private HttpServer serveur;
+    private S3StorageProvider provider;
+
+    @TempDir
+    Path repertoire;
+
+    @BeforeEach
+    void demarrer() throws IOException {
+        serveur = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serveur.createContext("/", this::traiter);
+        serveur.start();
+        provider = new S3StorageProvider("http://localhost:" + serveur.getAddress().getPort(),
+                "media", "eu-west-3", "AKIDTEST", "secret", "https://cdn.example.org/media");
+    }
+
+    @AfterEach
+    void arreter() {
+        serveur.stop(0);
+    }
+
+    @Test
+    void ecritLitEtSupprimeUnObjetSigne() throws IOException {
+        byte[] contenu = "contenu du rapport".getBytes();
+        Path source = Files.write(repertoire.resolve("rapport.part"), contenu);
+
+        String url = provider.stocker(source, "abcd.pdf", "application/pdf");
+
+        assertEquals("https://cdn.example.org/media/abcd.pdf", url);
+        assertFalse(Files.exists(source));
+        assertArrayEquals(contenu, objets.get("/media/abcd.pdf"));
+        assertTrue(autorisations.get(0).startsWith("AWS4-HMAC-SHA256 Credential=AKIDTEST/"));
+        assertTrue(autorisations.get(0).contains("/eu-west-3/s3/aws4_request, SignedHeaders=host;x-amz-content-sha256;x-amz-date, Signature="));
+
+        try (InputStream lu = provider.ouvrir(url)) {
+            assertArrayEquals(contenu, lu.readAllBytes());
+        }
+        assertTrue(provider.charger(url).isEmpty());
+
+        provider.supprimer(url);
+        assertFalse(objets.containsKey("/media/abcd.pdf"));
+        provider.supprimer(url);
+        assertThrows(IOException.class, () -> provider.ouvrir(url));
+    }
+
+    @Test
+    void refuseLesUrlsHorsDuBucket() {
+        assertFalse(provider.gere("/uploads/abcd.pdf"));
+        assertThrows(IOException.class, () -> provider.ouvrir("https://ailleurs.example.org/media/abcd.pdf"));
+    }
+
+    private void traiter(HttpExchange echange) throws IOException {
+        String cle = echange.getRequestURI().getRawPath();
+        autorisations.add(echange.getRequestHeaders().getFirst("Authorization"));
+        switch (echange.getRequestMethod()) {
+            case "PUT" -> {
+                objets.put(cle, echange.getRequestBody().readAllBytes());
+                echange.sendResponseHeaders(200, -1);
+            }
+            case "GET" -> {
+                byte[] objet = objets.get(cle);
+                if (objet == null) {
+                    echange.sendResponseHeaders(404, -1);
+                } else {
+                    echange.sendResponseHeaders(200, objet.length);
+                    echange.getResponseBody().write(objet);
+                }
+            }
+            case "DELETE" -> echange.sendResponseHeaders(objets.remove(cle) != null ? 204 : 404, -1);
+            default -> echange.sendResponseHeaders(405, -1);
+        }
+        echange.close();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.DTOs.StagiaireDTO;
+import com.example.back_gestion_Stage.Entities.Encadreur;
+import com.example.back_gestion_Stage.Entities.MediaFile;
+import com.example.back_gestion_Stage.Entities.Stage;
+import com.example.back_gestion_Stage.Entities.Stagiaire;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(StagiaireService.class)
+class StagiaireListQueryTest {
+
+    @MockitoBean
+    private CompteUtilisateurService compteUtilisateurService;
+
+    @MockitoBean
+    private EncadreurService encadreurService;
+
+    @MockitoBean
+    private ExistenceFilterService existenceFilterService;
+
+    @Autowired
+    private StagiaireService stagiaireService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private int sequence = 0;
+
+    @Test
+    void leNombreDeRequetesNeDependPasDuNombreDeStagiaires() {
+        creerStagiaires(3);
+        long petitVolume = compterRequetes(() -> stagiaireService.findAllActifs());
+
+        creerStagiaires(40);
+        long grandVolume = compterRequetes(() -> stagiaireService.findAllActifs());
+
+        assertEquals(1, petitVolume);
+        assertEquals(petitVolume, grandVolume);
+        assertEquals(petitVolume, compterRequetes(() -> stagiaireService.findAll()));
+    }
+
+    @Test
+    void lesPagesParCurseurPassentParLaProjection() {
+        creerStagiaires(3);
+        long petitePage = compterRequetes(() -> stagiaireService.findActifsPage(null, 50).getItems());
+
+        creerStagiaires(40);
+        long grandePage = compterRequetes(() -> stagiaireService.findActifsPage(null, 50).getItems());
+
+        assertEquals(1, petitePage);
+        assertEquals(petitePage, grandePage);
+        assertEquals(petitePage, compterRequetes(() -> stagiaireService.findPage(null, 50).getItems()));
+
+        java.util.Set<String> vus = new java.util.HashSet<>();
+        String curseur = null;
+        do {
+            var page = stagiaireService.findActifsPage(curseur, 10);
+            page.getItems().forEach(dto -> assertTrue(vus.add(dto.getDocumentId())));
+            curseur = page.getNextCursor();
+        } while (curseur != null);
+        assertEquals(43, vus.size());
+    }
+
+    @Test
+    void laProjectionResoutEncadreurPhotoEtStageActif() {
+        List<Stagiaire> stagiaires = creerStagiaires(2);
+        Stagiaire enStage = stagiaires.get(0);
+
+        Stage stage = new Stage();
+        stage.setTitre("Stage");
+        stage.setDateDebut(LocalDate.now().minusDays(1));
+        stage.setDateFin(LocalDate.now().plusDays(1));
+        stage.setStatutStage(Stage.StatutStage.EN_COURS);
+        stage.addStagiaire(enStage);
+        entityManager.persist(stage);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<StagiaireDTO> dtos = stagiaireService.findByEncadreur(enStage.getEncadreur().getDocumentId());
+
+        assertEquals(1, dtos.size());
+        StagiaireDTO dto = dtos.get(0);
+        assertEquals(enStage.getDocumentId(), dto.getDocumentId());
+        assertEquals(enStage.getEncadreur().getDocumentId(), dto.getEncadreurDocumentId());
+        assertEquals(enStage.getPhoto().getThumbnailUrl(), dto.getThumbnailUrl());
+        assertTrue(dto.getHasActiveStage());
+
+        StagiaireDTO autre = stagiaireService.findByEncadreur(stagiaires.get(1).getEncadreur().getDocumentId()).get(0);
+        assertFalse(autre.getHasActiveStage());
+    }
+
+    private long compterRequetes(Supplier<List<StagiaireDTO>> appel) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistiques = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistiques.clear();
+        appel.get();
+        return statistiques.getPrepareStatementCount();
+    }
+
+    private List<Stagiaire> creerStagiaires(int nombre) {
+        return java.util.stream.IntStream.range(0, nombre).mapToObj(i -> {
+            int n = sequence++;
+            Encadreur encadreur = new Encadreur();
+            encadreur.setNom("Encadreur");
+            encadreur.setPrenom("Test");
+            encadreur.setEmail("encadreur" + n + "@test.mg");
+            encadreur.setTelephone("0340000000");
+            encadreur.setCin("E" + n);
+            entityManager.persist(encadreur);
+
+            MediaFile photo = new MediaFile();
+            photo.setName("photo" + n + ".jpg");
+            photo.setUrl("/uploads/photo" + n + ".jpg");
+            photo.setThumbnailUrl("/uploads/thumb_photo" + n + ".jpg");
+            entityManager.persist(photo);
+
+            Stagiaire stagiaire = new Stagiaire();
+            stagiaire.setNom("Stagiaire");
+            stagiaire.setPrenom("Test");
+            stagiaire.setEmail("stagiaire" + n + "@test.mg");
+            stagiaire.setTelephone("0340000000");
+            stagiaire.setCin("S" + n);
+            stagiaire.setEncadreur(encadreur);
+            stagiaire.setPhoto(photo);
+            entityManager.persist(stagiaire);
+            return stagiaire;
+        }).toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.back_gestion_Stage.Services;
+
+import com.example.back_gestion_Stage.DTOs.CompteUtilisateurDTO;
+import com.example.back_gestion_Stage.Entities.CompteUtilisateur;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Jetons signés avec un secret fixe ; les jetons forgés sont signés avec la même clé quand c'est utile
+class TokenServiceTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final Base64.Encoder ENCODEUR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODEUR = Base64.getUrlDecoder();
+    private static final String ENTETE = encoder("{\"alg\":\"HS256\",\"typ\":\"JWT\"}");
+
+    private final TokenService tokenService = new TokenService(new ObjectMapper(),
+            Base64.getEncoder().encodeToString(SECRET), Duration.ofHours(8));
+
+    @Test
+    void unJetonEmisEstRelu() {
+        Instant expiration = Instant.now().plus(Duration.ofHours(1)).truncatedTo(ChronoUnit.SECONDS);
+        String jeton = tokenService.emettre(compte(), expiration);
+
+        CompteAuthentifie authentifie = tokenService.valider(jeton).orElseThrow();
+
+        assertEquals("doc-1", authentifie.documentId());
+        assertEquals("encadreur@exemple.ma", authentifie.email());
+        assertEquals(CompteUtilisateur.TypeCompte.ENCADREUR, authentifie.typeCompte());
+        assertEquals("enc-1", authentifie.entityDocumentId());
+        assertEquals(expiration, authentifie.expiresAt());
+    }
+
+    @Test
+    void uneChargeModifieeEstRejetee() {
+        String[] parties = tokenService.emettre(compte(), Instant.now().plusSeconds(3600)).split("\\.");
+        String charge = new String(DECODEUR.decode(parties[1]), StandardCharsets.UTF_8)
+                .replace("ENCADREUR", "ADMIN");
+
+        assertTrue(tokenService.valider(parties[0] + "." + encoder(charge) + "." + parties[2]).isEmpty());
+    }
+
+    @Test
+    void unEnteteModifieEstRejete() {
+        String[] parties = tokenService.emettre(compte(), Instant.now().plusSeconds(3600)).split("\\.");
+        String sansAlgorithme = encoder("{\"alg\":\"none\",\"typ\":\"JWT\"}");
+        String autreAlgorithme = encoder("{\"alg\":\"HS512\",\"typ\":\"JWT\"}");
+
+        assertTrue(tokenService.valider(sansAlgorithme + "." + parties[1] + ".").isEmpty());
+        assertTrue(tokenService.valider(sansAlgorithme + "." + parties[1] + "." + parties[2]).isEmpty());
+        // Même correctement signé, un en-tête différent de celui émis n'est pas accepté
+        assertTrue(tokenService.valider(signer(autreAlgorithme, parties[1])).isEmpty());
+    }
+
+    @Test
+    void unJetonExpireEstRejete() {
+        String jeton = tokenService.emettre(compte(), Instant.now().minusSeconds(1));
+
+        assertTrue(tokenService.valider(jeton).isEmpty());
+    }
+
+    @Test
+    void unJetonMalEncodeEstRejete() {
+        String[] parties = tokenService.emettre(compte(), Instant.now().plusSeconds(3600)).split("\\.");
+
+        assertTrue(tokenService.valider(null).isEmpty());
+        assertTrue(tokenService.valider("").isEmpty());
+        assertTrue(tokenService.valider("pas-un-jeton").isEmpty());
+        assertTrue(tokenService.valider(parties[0] + "." + parties[1] + ".%%%").isEmpty());
+        // Charge qui n'est pas du base64url, mais correctement signée
+        assertTrue(tokenService.valider(signer(ENTETE, "***")).isEmpty());
+        // Charge base64 valide qui n'est pas du JSON
+        assertTrue(tokenService.valider(signer(ENTETE, encoder("pas du json"))).isEmpty());
+    }
+
+    @Test
+    void unTypeDeCompteInconnuEstRejete() {
+        long exp = Instant.now().plusSeconds(3600).getEpochSecond();
+        String charge = encoder("{\"sub\":\"doc-1\",\"typ\":\"INCONNU\",\"exp\":" + exp + "}");
+
+        Optional<CompteAuthentifie> resultat = tokenService.valider(signer(ENTETE, charge));
+
+        assertTrue(resultat.isEmpty());
+    }
+
+    private static CompteUtilisateurDTO compte() {
+        CompteUtilisateurDTO compte = new CompteUtilisateurDTO();
+        compte.setDocumentId("doc-1");
+        compte.setEmail("encadreur@exemple.ma");
+        compte.setTypeCompte(CompteUtilisateur.TypeCompte.ENCADREUR);
+        compte.setEntityDocumentId("enc-1");
+        return compte;
+    }
+
+    private static String encoder(String texte) {
+        return ENCODEUR.encodeToString(texte.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String signer(String entete, String charge) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+            String contenu = entete + "." + charge;
+            return contenu + "." + ENCODEUR.encodeToString(mac.doFinal(contenu.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}